@@ -65,7 +65,7 @@ build {
       "sudo add-apt-repository universe -y",
       "sudo add-apt-repository multiverse -y",
       "sudo apt-get update -y",
-      "sudo apt-get install -y openjdk-17-jdk-headless wget unzip"
+      "sudo apt-get install -y openjdk-21-jdk-headless wget unzip"
     ]
   }
 
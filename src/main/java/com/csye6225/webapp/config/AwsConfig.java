@@ -1,20 +1,75 @@
 package com.csye6225.webapp.config;
 
-import com.amazonaws.auth.DefaultAWSCredentialsProviderChain;
-import com.amazonaws.regions.Regions;
-import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.csye6225.webapp.metrics.AwsTimingMetricPublisher;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3AsyncClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.sns.SnsAsyncClient;
+import software.amazon.awssdk.services.sns.SnsAsyncClientBuilder;
+
+import java.net.URI;
+import java.time.Duration;
 
 @Configuration
 public class AwsConfig {
 
-    @Bean
-    public AmazonS3 amazonS3() {
-        return AmazonS3ClientBuilder.standard()
-                .withRegion(Regions.US_EAST_1)
-                .withCredentials(new DefaultAWSCredentialsProviderChain())
+    // One Netty transport (event loop and connection pool) shared by every AWS client
+    @Bean(destroyMethod = "close")
+    public SdkAsyncHttpClient sdkAsyncHttpClient(@Value("${aws.http.max-concurrency:64}") int maxConcurrency,
+                                                 @Value("${aws.http.max-pending-connection-acquires:1000}") int maxPendingConnectionAcquires,
+                                                 @Value("${aws.http.connection-acquisition-timeout-ms:2000}") long connectionAcquisitionTimeoutMillis) {
+        return NettyNioAsyncHttpClient.builder()
+                .maxConcurrency(maxConcurrency)
+                .maxPendingConnectionAcquires(maxPendingConnectionAcquires)
+                .connectionAcquisitionTimeout(Duration.ofMillis(connectionAcquisitionTimeoutMillis))
                 .build();
     }
+
+    // aws.s3.endpoint and aws.sns.endpoint point the clients at local stand-ins; empty means AWS.
+    // A custom S3 endpoint is addressed path-style (http://host/bucket/key).
+    @Bean(destroyMethod = "close")
+    public S3AsyncClient s3AsyncClient(SdkAsyncHttpClient sdkAsyncHttpClient, AwsTimingMetricPublisher awsTimingMetricPublisher,
+                                       @Value("${aws.s3.endpoint:}") String endpoint) {
+        S3AsyncClientBuilder builder = S3AsyncClient.builder()
+                .region(Region.US_EAST_1)
+                .httpClient(sdkAsyncHttpClient)
+                .overrideConfiguration(o -> o.addMetricPublisher(awsTimingMetricPublisher));
+        if (StringUtils.hasText(endpoint)) {
+            builder.endpointOverride(URI.create(endpoint)).forcePathStyle(true);
+        }
+        return builder.build();
+    }
+
+    // Signs URLs locally, it never calls S3
+    @Bean(destroyMethod = "close")
+    public S3Presigner s3Presigner(@Value("${aws.s3.endpoint:}") String endpoint) {
+        S3Presigner.Builder builder = S3Presigner.builder()
+                .region(Region.US_EAST_1);
+        if (StringUtils.hasText(endpoint)) {
+            builder.endpointOverride(URI.create(endpoint))
+                    .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build());
+        }
+        return builder.build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public SnsAsyncClient snsAsyncClient(SdkAsyncHttpClient sdkAsyncHttpClient, AwsTimingMetricPublisher awsTimingMetricPublisher,
+                                         @Value("${aws.sns.endpoint:}") String endpoint) {
+        SnsAsyncClientBuilder builder = SnsAsyncClient.builder()
+                .region(Region.US_EAST_1)
+                .httpClient(sdkAsyncHttpClient)
+                .overrideConfiguration(o -> o.addMetricPublisher(awsTimingMetricPublisher));
+        if (StringUtils.hasText(endpoint)) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        return builder.build();
+    }
 }
@@ -0,0 +1,68 @@
+package com.csye6225.webapp.config;
+
+import com.csye6225.webapp.metrics.ConnectionPoolMetrics;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Builds the Hikari pool in place of Boot's default so it can be sized from the hardware and
+// instrumented. spring.datasource.hikari.* is still bound afterwards and wins over anything
+// set here.
+@Configuration
+public class DataSourceConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataSourceConfig.class);
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties,
+                                       ConnectionPoolMetrics connectionPoolMetrics,
+                                       @Value("${db.pool.max-size:0}") int maxSize,
+                                       @Value("${db.pool.min-size:10}") int minSize,
+                                       @Value("${db.pool.cores:0}") int cores,
+                                       @Value("${db.pool.spindles:1}") int spindles,
+                                       @Value("${db.pool.expected-concurrency:0}") int expectedConcurrency,
+                                       @Value("${db.statement-cache.prepare-threshold:1}") int prepareThreshold,
+                                       @Value("${db.statement-cache.queries:256}") int cacheQueries,
+                                       @Value("${db.statement-cache.size-mib:5}") int cacheSizeMiB) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+
+        int poolSize = maxSize > 0
+                ? maxSize
+                : poolSize(cores > 0 ? cores : Runtime.getRuntime().availableProcessors(), spindles, expectedConcurrency, minSize);
+        dataSource.setMaximumPoolSize(poolSize);
+        dataSource.setMetricsTrackerFactory(connectionPoolMetrics);
+
+        if (isPostgres(properties.determineUrl())) {
+            // Server-side prepare from the first execution, and keep enough statements per
+            // connection for every query the app issues (findByEmail, the signup insert, ...)
+            dataSource.addDataSourceProperty("prepareThreshold", prepareThreshold);
+            dataSource.addDataSourceProperty("preparedStatementCacheQueries", cacheQueries);
+            dataSource.addDataSourceProperty("preparedStatementCacheSizeMiB", cacheSizeMiB);
+        }
+        logger.info("Connection pool sized to {} connections", poolSize);
+        return dataSource;
+    }
+
+    // HikariCP's rule of thumb, (cores * 2) + spindles, bounded by how many requests are
+    // expected to need a connection at once. More connections than that only queue on the
+    // database instead of in the pool. The formula alone gives a 1-vCPU instance 3 connections;
+    // minSize keeps the previous fixed default of 10 as a floor, which the back-pressure limits
+    // were tuned against, unless the operator lowers it or sets the expected concurrency.
+    static int poolSize(int cores, int spindles, int expectedConcurrency, int minSize) {
+        int size = Math.max(cores * 2 + spindles, minSize);
+        if (expectedConcurrency > 0) {
+            size = Math.min(size, expectedConcurrency);
+        }
+        return Math.max(2, size);
+    }
+
+    public static boolean isPostgres(String url) {
+        return url != null && url.startsWith("jdbc:postgresql:");
+    }
+}
@@ -1,7 +1,15 @@
 package com.csye6225.webapp.config;
 
+import com.csye6225.webapp.metrics.AwsTimingMetricPublisher;
 import com.timgroup.statsd.NonBlockingStatsDClient;
 import com.timgroup.statsd.StatsDClient;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.config.NamingConvention;
+import io.micrometer.core.instrument.util.HierarchicalNameMapper;
+import io.micrometer.statsd.StatsdConfig;
+import io.micrometer.statsd.StatsdFlavor;
+import io.micrometer.statsd.StatsdMeterRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -12,4 +20,41 @@ public class MetricsConfig {
     public StatsDClient statsDClient() {
         return new NonBlockingStatsDClient("webapp", "localhost", 8125);
     }
+
+    // Timers go through Micrometer to the same agent, under the same "webapp." prefix and with
+    // metric names kept exactly as written
+    @Bean(destroyMethod = "close")
+    public MeterRegistry meterRegistry() {
+        StatsdConfig config = new StatsdConfig() {
+            @Override
+            public String get(String key) {
+                return null;
+            }
+
+            @Override
+            public StatsdFlavor flavor() {
+                return StatsdFlavor.ETSY;
+            }
+
+            @Override
+            public String host() {
+                return "localhost";
+            }
+
+            @Override
+            public int port() {
+                return 8125;
+            }
+        };
+        StatsdMeterRegistry registry = new StatsdMeterRegistry(config,
+                (id, convention) -> "webapp." + HierarchicalNameMapper.DEFAULT.toHierarchicalName(id, convention),
+                Clock.SYSTEM);
+        registry.config().namingConvention(NamingConvention.identity);
+        return registry;
+    }
+
+    @Bean
+    public AwsTimingMetricPublisher awsTimingMetricPublisher(MeterRegistry meterRegistry) {
+        return new AwsTimingMetricPublisher(meterRegistry);
+    }
 }
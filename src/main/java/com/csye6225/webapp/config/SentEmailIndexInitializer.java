@@ -0,0 +1,104 @@
+package com.csye6225.webapp.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Indexes on sent_emails that ddl-auto cannot express. Tokens are looked up through a unique
+// index on md5(token), which keeps index entries at a fixed 32 characters whatever the token
+// length. CONCURRENTLY so an existing table keeps taking writes while the index builds.
+//
+// A concurrent build that fails (duplicate tokens, a cancelled statement) leaves an INVALID
+// index behind, which IF NOT EXISTS would then skip on every later start. So an invalid index is
+// dropped and built again. Instances take an advisory lock first: an index another instance is
+// still building also shows as invalid, and must not be dropped.
+@Component
+public class SentEmailIndexInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(SentEmailIndexInitializer.class);
+
+    static final String TOKEN_INDEX = "idx_sent_emails_token_md5";
+
+    static final String TOKEN_INDEX_DDL =
+            "CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS " + TOKEN_INDEX + " ON sent_emails (md5(token))";
+
+    static final String LOCK_SQL = "SELECT pg_try_advisory_lock(hashtext('" + TOKEN_INDEX + "'))";
+
+    static final String UNLOCK_SQL = "SELECT pg_advisory_unlock(hashtext('" + TOKEN_INDEX + "'))";
+
+    static final String VALIDITY_SQL = "SELECT i.indisvalid FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid "
+            + "WHERE c.relname = '" + TOKEN_INDEX + "'";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String datasourceUrl;
+
+    public SentEmailIndexInitializer(JdbcTemplate jdbcTemplate, @Value("${spring.datasource.url:}") String datasourceUrl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.datasourceUrl = datasourceUrl;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        if (!DataSourceConfig.isPostgres(datasourceUrl)) {
+            return;
+        }
+        try {
+            // One connection throughout, since the advisory lock belongs to the session
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                createTokenIndex(connection);
+                return null;
+            });
+        } catch (DataAccessException e) {
+            // Most likely duplicate tokens; lookups still work without the index, only slower,
+            // and the next start drops the invalid index and tries again
+            logger.error("Could not create the sent_emails token index: {}", e.getMessage());
+        }
+    }
+
+    void createTokenIndex(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            if (!queryBoolean(statement, LOCK_SQL)) {
+                logger.info("Another instance is creating the sent_emails token index");
+                return;
+            }
+            try {
+                Boolean valid = queryIndexValidity(statement);
+                if (Boolean.TRUE.equals(valid)) {
+                    return;
+                }
+                if (valid != null) {
+                    logger.warn("Dropping invalid index {} left by an earlier failed build", TOKEN_INDEX);
+                    statement.execute("DROP INDEX CONCURRENTLY IF EXISTS " + TOKEN_INDEX);
+                }
+                statement.execute(TOKEN_INDEX_DDL);
+            } finally {
+                statement.execute(UNLOCK_SQL);
+            }
+        }
+    }
+
+    // null when the index does not exist
+    private static Boolean queryIndexValidity(Statement statement) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery(VALIDITY_SQL)) {
+            return resultSet.next() ? resultSet.getBoolean(1) : null;
+        }
+    }
+
+    private static boolean queryBoolean(Statement statement, String sql) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery(sql)) {
+            return resultSet.next() && resultSet.getBoolean(1);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.csye6225.webapp.controller;
 
+import com.csye6225.webapp.metrics.Timed;
 import com.csye6225.webapp.service.EmailVerificationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.slf4j.Logger;
@@ -13,6 +14,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 @RestController
 @RequestMapping("/v1/user")
+@Timed("api.user")
 public class EmailVerificationController {
 
     private static final Logger logger = LoggerFactory.getLogger(EmailVerificationController.class);
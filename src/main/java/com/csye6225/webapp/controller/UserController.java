@@ -1,9 +1,13 @@
 package com.csye6225.webapp.controller;
 
 import com.csye6225.webapp.dto.ProfilePicResponseDto;
+import com.csye6225.webapp.dto.SessionTokenResponseDto;
 import com.csye6225.webapp.dto.UserRequestDto;
 import com.csye6225.webapp.dto.UserResponseDto;
 import com.csye6225.webapp.dto.UserUpdateRequestDto;
+import com.csye6225.webapp.metrics.Timed;
+import com.csye6225.webapp.security.SessionTokenService;
+import com.csye6225.webapp.security.UserPrincipal;
 import com.csye6225.webapp.service.UserService;
 import com.timgroup.statsd.StatsDClient;
 import jakarta.servlet.http.HttpServletRequest;
@@ -12,14 +16,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/v1/user")
+@Timed("api.user")
 public class UserController {
 
     @Autowired
@@ -28,53 +34,38 @@ public class UserController {
     @Autowired
     private StatsDClient statsDClient;
 
+    @Autowired
+    private SessionTokenService sessionTokenService;
+
     // Get Authenticated User Details
     @GetMapping("/self")
     public ResponseEntity<?> getUserDetails(HttpServletRequest request) {
-        // Start the timer for this API
-        long start = System.currentTimeMillis();
-
         statsDClient.incrementCounter("api.user.getUserDetails.call_count");
 
         if (request.getContentLength() > 0 || request.getQueryString() != null) {
-            long duration = System.currentTimeMillis() - start;
-            statsDClient.recordExecutionTime("api.getUserDetails.time", duration);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
 
-        UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        String userEmail = userDetails.getUsername();
-        UserResponseDto userResponseDto = userService.getUserByEmail(userEmail);
-
-        // Calculate and record execution time
-        long duration = System.currentTimeMillis() - start;
-        statsDClient.recordExecutionTime("api.user.getUserDetails.time", duration);
+        UserResponseDto userResponseDto = userService.getUser(currentUser());
 
         return new ResponseEntity<>(userResponseDto, HttpStatus.OK);
     }
 
     @PostMapping
     public ResponseEntity<?> createUser(@Valid @RequestBody UserRequestDto userRequestDto) {
-        long start = System.currentTimeMillis();
-
         statsDClient.incrementCounter("api.user.createUser.call_count");
 
         UserResponseDto createdUser = userService.createUser(userRequestDto);
 
-        long duration = System.currentTimeMillis() - start;
-        statsDClient.recordExecutionTime("api.user.createUser.time", duration);
-
         return new ResponseEntity<>(createdUser, HttpStatus.CREATED);
     }
 
     @PutMapping("/self")
     public ResponseEntity<?> updateUser(@Valid @RequestBody UserUpdateRequestDto userUpdateRequestDto) {
-        long start = System.currentTimeMillis();
-
         statsDClient.incrementCounter("api.user.updateUser.call_count");
 
-        UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        String userEmail = userDetails.getUsername();
+        // The email, from either a Basic-auth UserPrincipal or a SessionTokenPrincipal
+        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
 
         if (!userEmail.equals(userUpdateRequestDto.getEmail())) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
@@ -82,68 +73,64 @@ public class UserController {
 
         userService.updateUser(userEmail, userUpdateRequestDto);
 
-        long duration = System.currentTimeMillis() - start;
-        statsDClient.recordExecutionTime("api.user.updateUser.time", duration);
-
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
+    // Trades one Basic-auth verification for a short-lived session token the client sends as
+    // "Authorization: Bearer <token>" on later calls instead of its password
+    @PostMapping("/self/token")
+    public ResponseEntity<?> createSessionToken(HttpServletRequest request) {
+        statsDClient.incrementCounter("api.user.createSessionToken.call_count");
+
+        if (request.getContentLength() > 0 || request.getQueryString() != null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+
+        // Only Basic auth yields a UserPrincipal: renewing a token with itself would keep it alive without the password
+        if (!(SecurityContextHolder.getContext().getAuthentication().getPrincipal() instanceof UserPrincipal principal)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        statsDClient.incrementCounter("auth.sessionToken.issued_count");
+        SessionTokenResponseDto responseDto = new SessionTokenResponseDto(sessionTokenService.issue(principal), "Bearer",
+                sessionTokenService.getTtl().toSeconds());
+
+        return ResponseEntity.status(HttpStatus.CREATED).body(responseDto);
+    }
+
     @RequestMapping(value = "/self", method = RequestMethod.HEAD)
     public ResponseEntity<?> handleHead() {
-        long start = System.currentTimeMillis();
-
         statsDClient.incrementCounter("api.user.handleHead.call_count");
 
-        long duration = System.currentTimeMillis() - start;
-        statsDClient.recordExecutionTime("api.user.handleHead.time", duration);
-
         return new ResponseEntity<>(HttpStatus.METHOD_NOT_ALLOWED);
     }
 
     @RequestMapping(value = "/self", method = RequestMethod.OPTIONS)
     public ResponseEntity<?> handleOptions() {
-        long start = System.currentTimeMillis();
-
         statsDClient.incrementCounter("api.user.handleOptions.call_count");
 
-        long duration = System.currentTimeMillis() - start;
-        statsDClient.recordExecutionTime("api.user.handleOptions.time", duration);
-
         return new ResponseEntity<>(HttpStatus.METHOD_NOT_ALLOWED);
     }
 
     @RequestMapping(method = RequestMethod.OPTIONS)
     public ResponseEntity<?> handleOptionsBase() {
-        long start = System.currentTimeMillis();
-
         statsDClient.incrementCounter("api.user.handleOptionsBase.call_count");
 
-        long duration = System.currentTimeMillis() - start;
-        statsDClient.recordExecutionTime("api.user.handleOptionsBase.time", duration);
-
         return new ResponseEntity<>(HttpStatus.METHOD_NOT_ALLOWED);
     }
 
     @GetMapping("/self/pic")
     public ResponseEntity<?> getProfilePic(HttpServletRequest request) {
-        long start = System.currentTimeMillis();
         statsDClient.incrementCounter("api.user.getProfilePic.call_count");
         if (request.getContentLength() > 0 || request.getQueryString() != null) {
-            long duration = System.currentTimeMillis() - start;
-            statsDClient.recordExecutionTime("api.getProfilePic.time", duration);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
-        UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        String userEmail = userDetails.getUsername();
-        long duration = System.currentTimeMillis() - start;
-        statsDClient.recordExecutionTime("api.getProfilePic.time", duration);
-        return userService.getProfilePic(userEmail);
+        return userService.getProfilePic(currentUser());
     }
 
     @PostMapping(value = "/self/pic", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<ProfilePicResponseDto> addOrUpdateProfilePic(@RequestParam("profilePic") MultipartFile profilePic) throws IOException {
-        UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        String userEmail = userDetails.getUsername();
+    public CompletableFuture<ResponseEntity<ProfilePicResponseDto>> addOrUpdateProfilePic(@RequestParam("profilePic") MultipartFile profilePic) throws IOException {
+        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
 
         statsDClient.incrementCounter("api.user.addOrUpdateProfilePic.call_count");
 
@@ -151,9 +138,8 @@ public class UserController {
     }
 
     @DeleteMapping("/self/pic")
-    public ResponseEntity<?> deleteProfilePic() {
-        UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        String userEmail = userDetails.getUsername();
+    public CompletableFuture<ResponseEntity<?>> deleteProfilePic() {
+        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
 
         statsDClient.incrementCounter("api.user.deleteProfilePic.call_count");
 
@@ -170,4 +156,13 @@ public class UserController {
         return new ResponseEntity<>(HttpStatus.METHOD_NOT_ALLOWED);
     }
 
+    // Basic auth loads the whole user row into the principal; a session token only carries the
+    // id, email and verified flag, so the row is read through the entity cache instead
+    private UserPrincipal currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return principal;
+        }
+        return userService.loadPrincipal(authentication.getName());
+    }
 }
@@ -1,6 +1,7 @@
 package com.csye6225.webapp.exception;
 
 import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.HttpRequestMethodNotSupportedException;
@@ -39,6 +40,20 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
     }
 
+    // Password hashing queue is full (signup or password change)
+    @ExceptionHandler(PasswordHashingUnavailableException.class)
+    public ResponseEntity<Void> handlePasswordHashingUnavailable(PasswordHashingUnavailableException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(e.getRetryAfterSeconds()))
+                .build();
+    }
+
+    // Every multipart upload buffer stayed in use for the whole wait
+    @ExceptionHandler(UploadCapacityException.class)
+    public ResponseEntity<Void> handleUploadCapacity() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+
     @ExceptionHandler(DataAccessResourceFailureException.class)
     public ResponseEntity<Map<String, String>> handleDataAccessException() {
         return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
@@ -0,0 +1,19 @@
+package com.csye6225.webapp.exception;
+
+import org.springframework.security.core.AuthenticationException;
+
+// Thrown when the password-hashing queue is full. It extends AuthenticationException so the
+// Basic-auth path can turn it into a 503 the same way as a controller can.
+public class PasswordHashingUnavailableException extends AuthenticationException {
+
+    private final long retryAfterSeconds;
+
+    public PasswordHashingUnavailableException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
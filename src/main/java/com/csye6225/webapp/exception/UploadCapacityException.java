@@ -0,0 +1,10 @@
+package com.csye6225.webapp.exception;
+
+// Thrown when no multipart upload buffer frees up in time, so the upload is refused with a 503
+// instead of waiting behind the uploads that hold them
+public class UploadCapacityException extends RuntimeException {
+
+    public UploadCapacityException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,43 @@
+package com.csye6225.webapp.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.core.metrics.CoreMetric;
+import software.amazon.awssdk.metrics.MetricCollection;
+import software.amazon.awssdk.metrics.MetricPublisher;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Times every AWS SDK call from the metrics the SDK already collects, as
+// aws.<service>.<operation>.time, e.g. aws.s3.putObject.time or aws.sns.publishBatch.time
+public class AwsTimingMetricPublisher implements MetricPublisher {
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public AwsTimingMetricPublisher(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void publish(MetricCollection metricCollection) {
+        List<String> serviceIds = metricCollection.metricValues(CoreMetric.SERVICE_ID);
+        List<String> operationNames = metricCollection.metricValues(CoreMetric.OPERATION_NAME);
+        List<Duration> durations = metricCollection.metricValues(CoreMetric.API_CALL_DURATION);
+        if (serviceIds.isEmpty() || operationNames.isEmpty() || durations.isEmpty()) {
+            return;
+        }
+
+        String name = "aws." + serviceIds.get(0).toLowerCase() + "." + StringUtils.uncapitalize(operationNames.get(0));
+        timers.computeIfAbsent(name, n -> Timers.timer(meterRegistry, n)).record(durations.get(0));
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,67 @@
+package com.csye6225.webapp.metrics;
+
+import com.timgroup.statsd.StatsDClient;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+// Hikari pool metrics: acquire and usage time as timers (db.pool.acquire.time,
+// db.pool.usage.time), acquire timeouts as a counter, and active/idle/pending/total
+// connections as StatsD gauges every report interval. Pending > 0 or a rising acquire time is
+// pool starvation.
+@Component
+public class ConnectionPoolMetrics implements MetricsTrackerFactory {
+
+    private final StatsDClient statsDClient;
+
+    private final Timer acquireTimer;
+
+    private final Timer usageTimer;
+
+    private volatile PoolStats poolStats;
+
+    public ConnectionPoolMetrics(StatsDClient statsDClient, MeterRegistry meterRegistry) {
+        this.statsDClient = statsDClient;
+        this.acquireTimer = Timers.timer(meterRegistry, "db.pool.acquire");
+        this.usageTimer = Timers.timer(meterRegistry, "db.pool.usage");
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        this.poolStats = poolStats;
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                acquireTimer.record(elapsedAcquiredNanos, TimeUnit.NANOSECONDS);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                usageTimer.record(elapsedBorrowedMillis, TimeUnit.MILLISECONDS);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                statsDClient.incrementCounter("db.pool.timeout_count");
+            }
+        };
+    }
+
+    @Scheduled(fixedRateString = "${db.pool.report-interval-ms:5000}")
+    public void report() {
+        PoolStats stats = poolStats;
+        if (stats == null) {
+            return;
+        }
+        statsDClient.recordGaugeValue("db.pool.active", stats.getActiveConnections());
+        statsDClient.recordGaugeValue("db.pool.idle", stats.getIdleConnections());
+        statsDClient.recordGaugeValue("db.pool.pending", stats.getPendingThreads());
+        statsDClient.recordGaugeValue("db.pool.total", stats.getTotalConnections());
+    }
+}
@@ -0,0 +1,14 @@
+package com.csye6225.webapp.metrics;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Times calls through TimingAspect. On a method the value is the metric name; on a type it is a
+// prefix, and each public method is timed as "<prefix>.<methodName>". ".time" is appended in both cases.
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Timed {
+    String value();
+}
@@ -0,0 +1,17 @@
+package com.csye6225.webapp.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+// Every timer in the app is built here so they all publish the same client-side percentiles
+public final class Timers {
+
+    private Timers() {
+    }
+
+    public static Timer timer(MeterRegistry meterRegistry, String name) {
+        return Timer.builder(name + ".time")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+}
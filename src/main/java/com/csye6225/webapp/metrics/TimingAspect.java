@@ -0,0 +1,92 @@
+package com.csye6225.webapp.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Times @Timed beans and every Spring Data repository call. Timers are resolved once per method
+// and reused, so a timed call costs a map lookup and two nanoTime reads. Calls returning a
+// CompletionStage are timed until the stage completes, not until the method returns.
+@Aspect
+@Component
+public class TimingAspect {
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Method, Timer> annotatedTimers = new ConcurrentHashMap<>();
+
+    // Repository methods such as save are declared once on CrudRepository, so key by repository too
+    private final Map<Class<?>, Map<Method, Timer>> repositoryTimers = new ConcurrentHashMap<>();
+
+    public TimingAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("@annotation(com.csye6225.webapp.metrics.Timed) || @within(com.csye6225.webapp.metrics.Timed)")
+    public Object timeAnnotated(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Timer timer = annotatedTimers.computeIfAbsent(method, this::annotatedTimer);
+        return time(joinPoint, timer);
+    }
+
+    // db.<repositoryName>.<methodName>.time, e.g. db.userRepository.findByEmail.time
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        Object repository = joinPoint.getThis();
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Timer timer = repositoryTimers
+                .computeIfAbsent(repository.getClass(), type -> new ConcurrentHashMap<>())
+                .computeIfAbsent(method, m -> Timers.timer(meterRegistry,
+                        "db." + repositoryName(repository) + "." + m.getName()));
+        return time(joinPoint, timer);
+    }
+
+    private Object time(ProceedingJoinPoint joinPoint, Timer timer) throws Throwable {
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+        if (result instanceof CompletionStage<?> stage) {
+            stage.whenComplete((value, e) -> timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        } else {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return result;
+    }
+
+    private Timer annotatedTimer(Method method) {
+        Timed methodTimed = AnnotationUtils.findAnnotation(method, Timed.class);
+        if (methodTimed != null) {
+            return Timers.timer(meterRegistry, methodTimed.value());
+        }
+        Timed typeTimed = AnnotationUtils.findAnnotation(method.getDeclaringClass(), Timed.class);
+        return Timers.timer(meterRegistry, typeTimed.value() + "." + method.getName());
+    }
+
+    private static String repositoryName(Object repository) {
+        for (Class<?> type : AopProxyUtils.proxiedUserInterfaces(repository)) {
+            if (Repository.class.isAssignableFrom(type)) {
+                return StringUtils.uncapitalize(type.getSimpleName());
+            }
+        }
+        return StringUtils.uncapitalize(repository.getClass().getSimpleName());
+    }
+}
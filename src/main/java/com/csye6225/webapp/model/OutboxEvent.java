@@ -0,0 +1,99 @@
+package com.csye6225.webapp.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.sql.Timestamp;
+
+@Entity
+@Table(name = "outbox_events", indexes = @Index(name = "idx_outbox_events_next_attempt_at", columnList = "next_attempt_at"))
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_type", nullable = false)
+    private String eventType;
+
+    @Column(nullable = false, length = 2048)
+    private String payload;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Timestamp createdAt;
+
+    // Publish attempts so far, counted when an attempt claims the event
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private int attempts;
+
+    // Not claimed again before this time: the claim lease while an attempt is running, then the
+    // retry backoff after a failure. Null means due now
+    @Column(name = "next_attempt_at")
+    private Timestamp nextAttemptAt;
+
+    // Set once the event has failed max-attempts times; it is kept for inspection but never retried
+    @Column(name = "dead_lettered_at")
+    private Timestamp deadLetteredAt;
+
+    public OutboxEvent() {
+    }
+
+    public OutboxEvent(String eventType, String payload) {
+        this.eventType = eventType;
+        this.payload = payload;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(String eventType) {
+        this.eventType = eventType;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public Timestamp getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Timestamp createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public Timestamp getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(Timestamp nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public Timestamp getDeadLetteredAt() {
+        return deadLetteredAt;
+    }
+
+    public void setDeadLetteredAt(Timestamp deadLetteredAt) {
+        this.deadLetteredAt = deadLetteredAt;
+    }
+}
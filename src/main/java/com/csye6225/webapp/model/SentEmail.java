@@ -5,7 +5,8 @@ import jakarta.persistence.*;
 import java.sql.Timestamp;
 
 @Entity
-@Table(name = "sent_emails")
+// The token index is an expression index, created by SentEmailIndexInitializer
+@Table(name = "sent_emails", indexes = @Index(name = "idx_sent_emails_sent_at", columnList = "sent_at"))
 public class SentEmail {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,29 @@
+package com.csye6225.webapp.repository;
+
+import com.csye6225.webapp.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Due events that are not dead-lettered. Rows locked by another relay instance are skipped,
+    // and a claimed row is leased by pushing next_attempt_at forward before the lock is released
+    @Query(value = "SELECT * FROM outbox_events WHERE dead_lettered_at IS NULL AND (next_attempt_at IS NULL OR next_attempt_at <= :now) "
+            + "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxEvent> lockNextBatch(@Param("now") Timestamp now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.nextAttemptAt = :nextAttemptAt WHERE e.id = :id")
+    int reschedule(@Param("id") Long id, @Param("nextAttemptAt") Timestamp nextAttemptAt);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.deadLetteredAt = :deadLetteredAt WHERE e.id = :id")
+    int deadLetter(@Param("id") Long id, @Param("deadLetteredAt") Timestamp deadLetteredAt);
+}
@@ -2,11 +2,21 @@ package com.csye6225.webapp.repository;
 
 import com.csye6225.webapp.model.SentEmail;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.util.Optional;
+import java.sql.Timestamp;
 
 @Repository
-public interface SentEmailRepository extends JpaRepository<SentEmail, Long> {
-    Optional<SentEmail> findByToken(String token);
+public interface SentEmailRepository extends JpaRepository<SentEmail, Long>, SentEmailRepositoryCustom {
+
+    // Bounded so one purge batch never holds locks on a large part of the table. Verified rows stay
+    // so a link clicked again keeps answering "already verified" rather than "Invalid token"
+    @Modifying
+    @Query(value = "DELETE FROM sent_emails WHERE id IN (SELECT id FROM sent_emails WHERE sent_at < :cutoff"
+            + " AND (status IS NULL OR status <> 'VERIFIED') ORDER BY sent_at LIMIT :limit)",
+            nativeQuery = true)
+    int deleteSentBefore(@Param("cutoff") Timestamp cutoff, @Param("limit") int limit);
 }
@@ -0,0 +1,13 @@
+package com.csye6225.webapp.repository;
+
+import com.csye6225.webapp.model.SentEmail;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface SentEmailRepositoryCustom {
+    Optional<SentEmail> findByToken(String token);
+
+    // Marks the token's user verified and the token used, if the token was sent at or after notBefore
+    TokenVerification verifyToken(String token, Instant notBefore);
+}
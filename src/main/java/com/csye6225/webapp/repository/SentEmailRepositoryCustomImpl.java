@@ -0,0 +1,126 @@
+package com.csye6225.webapp.repository;
+
+import com.csye6225.webapp.config.DataSourceConfig;
+import com.csye6225.webapp.model.SentEmail;
+import com.csye6225.webapp.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public class SentEmailRepositoryCustomImpl implements SentEmailRepositoryCustom {
+
+    private static final String VERIFIED = "VERIFIED";
+
+    // One round trip: lock the token row, mark the user verified if the token is unused and fresh,
+    // flip the token status only if the user row was updated, and report what happened. A
+    // concurrent click on the same link waits on the row lock and then sees status VERIFIED.
+    private static final String VERIFY_TOKEN_SQL = """
+            WITH token AS (
+                SELECT id, email, sent_at, status FROM sent_emails
+                WHERE md5(token) = md5(:token) AND token = :token
+                FOR UPDATE
+            ), verified AS (
+                UPDATE users u SET email_verified = TRUE, account_updated = :now
+                FROM token t
+                WHERE u.email = t.email AND t.status IS DISTINCT FROM 'VERIFIED' AND t.sent_at >= :notBefore
+                RETURNING u.id
+            ), claimed AS (
+                UPDATE sent_emails s SET status = 'VERIFIED'
+                FROM token t
+                WHERE s.id = t.id AND EXISTS (SELECT 1 FROM verified)
+                RETURNING s.id
+            )
+            SELECT t.status, t.sent_at >= :notBefore, (SELECT id FROM verified), t.email, (SELECT count(*) FROM claimed)
+            FROM token t
+            """;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.datasource.url:}")
+    private String datasourceUrl;
+
+    // On PostgreSQL the lookup goes through the unique index on md5(token) created by
+    // SentEmailIndexInitializer; the md5 predicate has to match the index expression to use it
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<SentEmail> findByToken(String token) {
+        List<SentEmail> sentEmails = DataSourceConfig.isPostgres(datasourceUrl)
+                ? entityManager.unwrap(Session.class)
+                        .createNativeQuery("SELECT * FROM sent_emails WHERE md5(token) = md5(:token) AND token = :token", SentEmail.class)
+                        .setParameter("token", token)
+                        .getResultList()
+                : entityManager.createQuery("SELECT s FROM SentEmail s WHERE s.token = :token", SentEmail.class)
+                        .setParameter("token", token)
+                        .getResultList();
+        return sentEmails.stream().findFirst();
+    }
+
+    // Writes to users behind Hibernate's back on PostgreSQL: the caller evicts the cached user
+    @Override
+    @Transactional
+    public TokenVerification verifyToken(String token, Instant notBefore) {
+        if (!DataSourceConfig.isPostgres(datasourceUrl)) {
+            return verifyTokenWithLock(token, notBefore);
+        }
+
+        List<?> rows = entityManager.createNativeQuery(VERIFY_TOKEN_SQL)
+                .setParameter("token", token)
+                .setParameter("notBefore", Timestamp.from(notBefore))
+                .setParameter("now", LocalDateTime.now())
+                .getResultList();
+        if (rows.isEmpty()) {
+            return new TokenVerification(TokenVerification.Result.INVALID, null, null);
+        }
+
+        Object[] row = (Object[]) rows.get(0);
+        String email = (String) row[3];
+        if (VERIFIED.equals(row[0])) {
+            return new TokenVerification(TokenVerification.Result.ALREADY_VERIFIED, null, email);
+        }
+        if (!Boolean.TRUE.equals(row[1])) {
+            return new TokenVerification(TokenVerification.Result.EXPIRED, null, email);
+        }
+        if (row[2] == null) {
+            return new TokenVerification(TokenVerification.Result.USER_NOT_FOUND, null, email);
+        }
+        return new TokenVerification(TokenVerification.Result.VERIFIED, ((Number) row[2]).longValue(), email);
+    }
+
+    // Same outcome on databases without data-modifying CTEs (H2 in tests): the token row is
+    // locked so concurrent clicks are serialized, and the changes are flushed on commit
+    private TokenVerification verifyTokenWithLock(String token, Instant notBefore) {
+        List<SentEmail> sentEmails = entityManager.createQuery("SELECT s FROM SentEmail s WHERE s.token = :token", SentEmail.class)
+                .setParameter("token", token)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+        if (sentEmails.isEmpty()) {
+            return new TokenVerification(TokenVerification.Result.INVALID, null, null);
+        }
+
+        SentEmail sentEmail = sentEmails.get(0);
+        if (VERIFIED.equals(sentEmail.getStatus())) {
+            return new TokenVerification(TokenVerification.Result.ALREADY_VERIFIED, null, sentEmail.getEmail());
+        }
+        if (sentEmail.getSentAt().toInstant().isBefore(notBefore)) {
+            return new TokenVerification(TokenVerification.Result.EXPIRED, null, sentEmail.getEmail());
+        }
+        User user = entityManager.unwrap(Session.class).bySimpleNaturalId(User.class).load(sentEmail.getEmail());
+        if (user == null) {
+            return new TokenVerification(TokenVerification.Result.USER_NOT_FOUND, null, sentEmail.getEmail());
+        }
+
+        user.setEmailVerified(true);
+        sentEmail.setStatus(VERIFIED);
+        return new TokenVerification(TokenVerification.Result.VERIFIED, user.getId(), sentEmail.getEmail());
+    }
+}
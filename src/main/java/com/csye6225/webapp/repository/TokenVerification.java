@@ -0,0 +1,13 @@
+package com.csye6225.webapp.repository;
+
+// Outcome of SentEmailRepository.verifyToken. userId and email are set when the token matched a row.
+public record TokenVerification(Result result, Long userId, String email) {
+
+    public enum Result {
+        VERIFIED,
+        ALREADY_VERIFIED,
+        EXPIRED,
+        INVALID,
+        USER_NOT_FOUND
+    }
+}
@@ -1,12 +1,13 @@
 package com.csye6225.webapp.repository;
 
 import com.csye6225.webapp.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
-@Repository
-public interface UserRepository extends JpaRepository<User, Long> {
-    boolean existsByEmail(String email);
+import java.util.List;
 
-    User findByEmail(String email);
+@Repository
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
+    List<User> findByProfilePicUrlIsNotNullAndIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
 }
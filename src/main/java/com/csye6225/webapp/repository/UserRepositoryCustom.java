@@ -0,0 +1,16 @@
+package com.csye6225.webapp.repository;
+
+import com.csye6225.webapp.model.User;
+
+public interface UserRepositoryCustom {
+    User findByEmail(String email);
+
+    // Only clears the key if it has not been replaced by a newer upload since it was read
+    int clearProfilePicUrl(Long id, String key);
+
+    // account_updated is left alone: a rehash is not a change made by the user
+    int updatePasswordIfUnchanged(Long id, String current, String upgraded);
+
+    // Sets only the columns passed non-null, plus account_updated
+    int updateProfile(User user, String firstName, String lastName, String password);
+}
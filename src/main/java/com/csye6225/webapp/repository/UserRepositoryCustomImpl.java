@@ -0,0 +1,97 @@
+package com.csye6225.webapp.repository;
+
+import com.csye6225.webapp.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Resolves email -> id from the natural-id cache and the user from the entity cache,
+    // only going to the database on a miss
+    @Override
+    @Transactional(readOnly = true)
+    public User findByEmail(String email) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(User.class)
+                .load(email);
+    }
+
+    // The updates below go through JDBC rather than a JPQL or native bulk update:
+    // Hibernate answers those by emptying the whole user and user-natural-id cache regions.
+    // Only the updated row is evicted here, and the email -> id mapping never changes.
+
+    @Override
+    @Transactional
+    public int clearProfilePicUrl(Long id, String key) {
+        int updated = jdbcTemplate.update("UPDATE users SET profile_pic_url = NULL WHERE id = ? AND profile_pic_url = ?", id, key);
+        evictAfterCommit(id, updated);
+        return updated;
+    }
+
+    @Override
+    @Transactional
+    public int updatePasswordIfUnchanged(Long id, String current, String upgraded) {
+        int updated = jdbcTemplate.update("UPDATE users SET password = ? WHERE id = ? AND password = ?", upgraded, id, current);
+        evictAfterCommit(id, updated);
+        return updated;
+    }
+
+    @Override
+    @Transactional
+    public int updateProfile(User user, String firstName, String lastName, String password) {
+        StringBuilder sql = new StringBuilder("UPDATE users SET account_updated = ?");
+        List<Object> args = new ArrayList<>(5);
+        args.add(Timestamp.valueOf(LocalDateTime.now()));
+        if (firstName != null) {
+            sql.append(", first_name = ?");
+            args.add(firstName);
+        }
+        if (lastName != null) {
+            sql.append(", last_name = ?");
+            args.add(lastName);
+        }
+        if (password != null) {
+            sql.append(", password = ?");
+            args.add(password);
+        }
+        sql.append(" WHERE email = ?");
+        args.add(user.getEmail());
+        int updated = jdbcTemplate.update(sql.toString(), args.toArray());
+        evictAfterCommit(user.getId(), updated);
+        return updated;
+    }
+
+    // After the commit, or a reader could cache the old row again between the eviction and the commit
+    private void evictAfterCommit(Long id, int updated) {
+        if (updated == 0) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                entityManagerFactory.getCache().evict(User.class, id);
+            }
+        });
+    }
+}
@@ -0,0 +1,37 @@
+package com.csye6225.webapp.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Charges RateLimitFilter's per-account bucket after Basic or session token authentication has
+// succeeded, so only the account's own calls count against it. Failed logins never get here:
+// the entry point has already answered 401.
+public class AccountRateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimitFilter rateLimitFilter;
+
+    public AccountRateLimitFilter(RateLimitFilter rateLimitFilter) {
+        this.rateLimitFilter = rateLimitFilter;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated() && request.getRequestURI().startsWith("/v1/user/self")) {
+            long waitNanos = rateLimitFilter.throttleAccount(authentication.getName());
+            if (waitNanos > 0) {
+                RateLimitFilter.reject(response, waitNanos);
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,57 @@
+package com.csye6225.webapp.security;
+
+import com.csye6225.webapp.service.PasswordUpgradeService;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+
+// Answers repeat Basic-auth requests from the VerifiedCredentialCache and only falls back
+// to the delegate (DB lookup + BCrypt) on a miss. A miss that verified against an outdated
+// hash queues a rehash with the current algorithm and cost.
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+    private final AuthenticationProvider delegate;
+
+    private final VerifiedCredentialCache verifiedCredentialCache;
+
+    private final PasswordUpgradeService passwordUpgradeService;
+
+    public CachingAuthenticationProvider(AuthenticationProvider delegate, VerifiedCredentialCache verifiedCredentialCache,
+                                         PasswordUpgradeService passwordUpgradeService) {
+        this.delegate = delegate;
+        this.verifiedCredentialCache = verifiedCredentialCache;
+        this.passwordUpgradeService = passwordUpgradeService;
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        String email = authentication.getName();
+        Object credentials = authentication.getCredentials();
+        if (email == null || credentials == null) {
+            return delegate.authenticate(authentication);
+        }
+
+        String password = credentials.toString();
+        UserDetails cached = verifiedCredentialCache.get(email, password);
+        if (cached != null) {
+            return UsernamePasswordAuthenticationToken.authenticated(cached, password, cached.getAuthorities());
+        }
+
+        Authentication result = delegate.authenticate(authentication);
+        if (result != null && result.getPrincipal() instanceof UserDetails userDetails) {
+            // Read the hash now, the ProviderManager erases it from the principal once we return
+            if (userDetails instanceof UserPrincipal principal && passwordUpgradeService.needsUpgrade(principal.getPassword())) {
+                passwordUpgradeService.upgradeAsync(principal.getId(), password, principal.getPassword());
+            }
+            verifiedCredentialCache.put(email, password, userDetails);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+}
@@ -0,0 +1,148 @@
+package com.csye6225.webapp.security;
+
+import com.timgroup.statsd.StatsDClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+// Sheds load with a fast 503 once the API has as many requests in flight as it can sustain.
+// Expensive routes (signup and password change, which hash), profile picture uploads and cheap
+// routes (the rest of /v1) get separate adaptive limits, so a flood of signups cannot use up the
+// slots of lookups. Uploads are timed from before the multipart body is read, so their latency
+// includes the client's own transfer time: they get a limit of their own with a threshold sized
+// for that, and a few slow clients cannot shrink the limit for signups. The health endpoints are
+// answered by HealthCheckFilter before this filter and are never shed: the load balancer has to
+// keep seeing the real health.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+@ConditionalOnProperty(name = "concurrency-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitFilter implements Filter {
+
+    private final AdaptiveConcurrencyLimiter cheapLimiter;
+
+    private final AdaptiveConcurrencyLimiter expensiveLimiter;
+
+    private final AdaptiveConcurrencyLimiter uploadLimiter;
+
+    private final StatsDClient statsDClient;
+
+    private final String retryAfterSeconds;
+
+    public ConcurrencyLimitFilter(StatsDClient statsDClient,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${concurrency-limit.backoff-ratio:0.9}") double backoffRatio,
+                                  @Value("${concurrency-limit.retry-after-seconds:1}") long retryAfterSeconds,
+                                  @Value("${concurrency-limit.cheap.initial:100}") int cheapInitial,
+                                  @Value("${concurrency-limit.cheap.min:10}") int cheapMin,
+                                  @Value("${concurrency-limit.cheap.max:1000}") int cheapMax,
+                                  @Value("${concurrency-limit.cheap.latency-threshold-ms:250}") long cheapLatencyThreshold,
+                                  @Value("${concurrency-limit.expensive.initial:20}") int expensiveInitial,
+                                  @Value("${concurrency-limit.expensive.min:2}") int expensiveMin,
+                                  @Value("${concurrency-limit.expensive.max:200}") int expensiveMax,
+                                  @Value("${concurrency-limit.expensive.latency-threshold-ms:1000}") long expensiveLatencyThreshold,
+                                  @Value("${concurrency-limit.upload.initial:20}") int uploadInitial,
+                                  @Value("${concurrency-limit.upload.min:2}") int uploadMin,
+                                  @Value("${concurrency-limit.upload.max:200}") int uploadMax,
+                                  @Value("${concurrency-limit.upload.latency-threshold-ms:30000}") long uploadLatencyThreshold) {
+        this.cheapLimiter = new AdaptiveConcurrencyLimiter(cheapInitial, cheapMin, cheapMax, backoffRatio, cheapLatencyThreshold);
+        this.expensiveLimiter = new AdaptiveConcurrencyLimiter(expensiveInitial, expensiveMin, expensiveMax, backoffRatio, expensiveLatencyThreshold);
+        this.uploadLimiter = new AdaptiveConcurrencyLimiter(uploadInitial, uploadMin, uploadMax, backoffRatio, uploadLatencyThreshold);
+        this.statsDClient = statsDClient;
+        this.retryAfterSeconds = Long.toString(retryAfterSeconds);
+        meterRegistry.gauge("concurrency.cheap.limit", cheapLimiter, AdaptiveConcurrencyLimiter::getLimit);
+        meterRegistry.gauge("concurrency.cheap.in_flight", cheapLimiter, AdaptiveConcurrencyLimiter::getInFlight);
+        meterRegistry.gauge("concurrency.expensive.limit", expensiveLimiter, AdaptiveConcurrencyLimiter::getLimit);
+        meterRegistry.gauge("concurrency.expensive.in_flight", expensiveLimiter, AdaptiveConcurrencyLimiter::getInFlight);
+        meterRegistry.gauge("concurrency.upload.limit", uploadLimiter, AdaptiveConcurrencyLimiter::getLimit);
+        meterRegistry.gauge("concurrency.upload.in_flight", uploadLimiter, AdaptiveConcurrencyLimiter::getInFlight);
+    }
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) servletRequest;
+        HttpServletResponse response = (HttpServletResponse) servletResponse;
+        String path = request.getRequestURI();
+        if (!path.startsWith("/v1/")) {
+            chain.doFilter(servletRequest, servletResponse);
+            return;
+        }
+
+        String group = group(request.getMethod(), path);
+        AdaptiveConcurrencyLimiter limiter = switch (group) {
+            case "upload" -> uploadLimiter;
+            case "expensive" -> expensiveLimiter;
+            default -> cheapLimiter;
+        };
+        if (!limiter.tryAcquire()) {
+            statsDClient.incrementCounter("concurrency." + group + ".rejected_count");
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setContentLength(0);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean completed = false;
+        try {
+            chain.doFilter(servletRequest, servletResponse);
+            completed = true;
+        } finally {
+            if (completed && request.isAsyncStarted()) {
+                // Profile picture upload and delete finish after S3 answers, not when the chain returns
+                request.getAsyncContext().addListener(new CompletionListener(limiter, start));
+            } else {
+                limiter.onComplete(System.nanoTime() - start, !completed || response.getStatus() >= 500);
+            }
+        }
+    }
+
+    private static String group(String method, String path) {
+        if ("POST".equals(method) && "/v1/user/self/pic".equals(path)) {
+            return "upload";
+        }
+        if (("POST".equals(method) && "/v1/user".equals(path)) || ("PUT".equals(method) && "/v1/user/self".equals(path))) {
+            return "expensive";
+        }
+        return "cheap";
+    }
+
+    private record CompletionListener(AdaptiveConcurrencyLimiter limiter, long start) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            HttpServletResponse response = (HttpServletResponse) event.getSuppliedResponse();
+            limiter.onComplete(System.nanoTime() - start, response.getStatus() >= 500);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            // onComplete follows once the timeout has been handled
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            // onComplete follows once the error has been handled
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package com.csye6225.webapp.security;
 
 import com.csye6225.webapp.exception.DatabaseAuthenticationException;
+import com.csye6225.webapp.exception.PasswordHashingUnavailableException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.stereotype.Component;
@@ -14,7 +16,11 @@ public class CustomAuthenticationEntryPoint implements AuthenticationEntryPoint
     public void commence(HttpServletRequest request, HttpServletResponse response, AuthenticationException authException) {
         Throwable cause = authException.getCause();
         response.setContentType("application/json");
-        if (cause instanceof DatabaseAuthenticationException) {
+        if (authException instanceof PasswordHashingUnavailableException busy) {
+            // Password hashing is saturated, ask the client to retry shortly
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(busy.getRetryAfterSeconds()));
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        } else if (cause instanceof DatabaseAuthenticationException) {
             // Handle database unavailability separately and return 503 Service Unavailable
             response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
         } else {
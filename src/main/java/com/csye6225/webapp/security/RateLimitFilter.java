@@ -0,0 +1,104 @@
+package com.csye6225.webapp.security;
+
+import com.timgroup.statsd.StatsDClient;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+// Sheds excess signups and authenticated calls before they reach Spring Security, BCrypt and
+// the database. Signups and calls to /v1/user/self* are limited per client IP, which Tomcat's
+// RemoteIpValve takes from X-Forwarded-For when the request comes through a trusted proxy
+// (server.forward-headers-strategy=native, server.tomcat.remoteip.internal-proxies). The per
+// account limit is charged by AccountRateLimitFilter once the caller has authenticated: keyed on
+// the unverified Basic username, anyone could exhaust a victim's bucket.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnProperty(name = "rate-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitFilter implements Filter {
+
+    private final RateLimiter signupPerIp;
+
+    private final RateLimiter authenticatedPerIp;
+
+    private final RateLimiter authenticatedPerEmail;
+
+    private final StatsDClient statsDClient;
+
+    public RateLimitFilter(StatsDClient statsDClient,
+                           @Value("${rate-limit.max-keys:100000}") long maxKeys,
+                           @Value("${rate-limit.idle-timeout-seconds:600}") long idleTimeoutSeconds,
+                           @Value("${rate-limit.signup.per-ip.capacity:10}") int signupIpCapacity,
+                           @Value("${rate-limit.signup.per-ip.refill-per-second:0.2}") double signupIpRefill,
+                           @Value("${rate-limit.authenticated.per-ip.capacity:200}") int authenticatedIpCapacity,
+                           @Value("${rate-limit.authenticated.per-ip.refill-per-second:50}") double authenticatedIpRefill,
+                           @Value("${rate-limit.authenticated.per-email.capacity:30}") int authenticatedEmailCapacity,
+                           @Value("${rate-limit.authenticated.per-email.refill-per-second:5}") double authenticatedEmailRefill) {
+        Duration idleTimeout = Duration.ofSeconds(idleTimeoutSeconds);
+        this.signupPerIp = new RateLimiter(signupIpCapacity, signupIpRefill, maxKeys, idleTimeout);
+        this.authenticatedPerIp = new RateLimiter(authenticatedIpCapacity, authenticatedIpRefill, maxKeys, idleTimeout);
+        this.authenticatedPerEmail = new RateLimiter(authenticatedEmailCapacity, authenticatedEmailRefill, maxKeys, idleTimeout);
+        this.statsDClient = statsDClient;
+    }
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) servletRequest;
+        String path = request.getRequestURI();
+
+        String route;
+        long waitNanos;
+        if ("POST".equals(request.getMethod()) && "/v1/user".equals(path)) {
+            route = "signup";
+            waitNanos = throttle(route, "ip", signupPerIp, request.getRemoteAddr());
+        } else if (path.startsWith("/v1/user/self")) {
+            route = "authenticated";
+            waitNanos = throttle(route, "ip", authenticatedPerIp, request.getRemoteAddr());
+        } else {
+            chain.doFilter(servletRequest, servletResponse);
+            return;
+        }
+
+        if (waitNanos > 0) {
+            reject((HttpServletResponse) servletResponse, waitNanos);
+            return;
+        }
+        statsDClient.incrementCounter("ratelimit." + route + ".admitted_count");
+        chain.doFilter(servletRequest, servletResponse);
+    }
+
+    // Per account, for AccountRateLimitFilter; returns how long to wait, or 0 if admitted
+    long throttleAccount(String email) {
+        return throttle("authenticated", "email", authenticatedPerEmail, email.toLowerCase(Locale.ROOT));
+    }
+
+    static void reject(HttpServletResponse response, long waitNanos) {
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999))));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setContentLength(0);
+    }
+
+    private long throttle(String route, String keyType, RateLimiter rateLimiter, String key) {
+        long waitNanos = rateLimiter.tryAcquire(key);
+        if (waitNanos > 0) {
+            statsDClient.incrementCounter("ratelimit." + route + "." + keyType + ".throttled_count");
+        }
+        return waitNanos;
+    }
+}
@@ -0,0 +1,65 @@
+package com.csye6225.webapp.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Token buckets per key (client IP, email), each refilling at refillPerSecond up to capacity.
+// A bucket is kept as the single number GCRA uses, the time at which it would be full again,
+// so taking a token is one compare-and-set with no lock. Buckets live in a Caffeine cache,
+// whose map is striped, bounded to maxKeys and drops buckets idle for longer than idleTimeout.
+public class RateLimiter {
+
+    private final Cache<String, AtomicLong> buckets;
+
+    private final Ticker ticker;
+
+    // Time one token takes to refill
+    private final long intervalNanos;
+
+    // How far ahead of now the bucket may be booked: capacity - 1 tokens
+    private final long burstNanos;
+
+    public RateLimiter(int capacity, double refillPerSecond, long maxKeys, Duration idleTimeout) {
+        this(capacity, refillPerSecond, maxKeys, idleTimeout, Ticker.systemTicker());
+    }
+
+    RateLimiter(int capacity, double refillPerSecond, long maxKeys, Duration idleTimeout, Ticker ticker) {
+        this.ticker = ticker;
+        this.intervalNanos = (long) (1_000_000_000L / refillPerSecond);
+        this.burstNanos = intervalNanos * (capacity - 1);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(idleTimeout)
+                .ticker(ticker)
+                .build();
+    }
+
+    // Takes a token from the key's bucket. Returns 0 if one was available, otherwise how many
+    // nanoseconds until the next one is, and takes nothing.
+    public long tryAcquire(String key) {
+        long now = ticker.read();
+        // A new bucket starts full
+        AtomicLong fullAt = buckets.get(key, k -> new AtomicLong(now));
+        while (true) {
+            long current = fullAt.get();
+            long start = current - now > 0 ? current : now;
+            long wait = start - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, start + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    long size() {
+        // Runs pending evictions, which are otherwise done asynchronously
+        buckets.cleanUp();
+        return buckets.estimatedSize();
+    }
+}
@@ -1,18 +1,29 @@
 package com.csye6225.webapp.security;
 
-import com.csye6225.webapp.repository.UserRepository;
 import com.csye6225.webapp.service.CustomUserDetailsService;
+import com.csye6225.webapp.service.PasswordUpgradeService;
+import com.timgroup.statsd.StatsDClient;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 import org.springframework.security.web.servletapi.SecurityContextHolderAwareRequestFilter;
 
+import java.util.HashMap;
+import java.util.Map;
+
 @Configuration
 public class SecurityConfig {
 
@@ -20,35 +31,74 @@ public class SecurityConfig {
     private CustomAuthenticationEntryPoint customAuthenticationEntryPoint;
 
     @Autowired
-    private UserRepository userRepository;
+    private VerifiedCredentialCache verifiedCredentialCache;
+
+    @Autowired
+    private StatsDClient statsDClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private SessionTokenService sessionTokenService;
+
+    // Absent when rate-limit.enabled is false
+    @Autowired(required = false)
+    private RateLimitFilter rateLimitFilter;
 
     @Bean
     public UserDetailsService userDetailsService() {
         return new CustomUserDetailsService(); // CustomUserDetailsService will load user by email
     }
 
-    @Bean
-    public BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    @Bean(destroyMethod = "shutdown")
+    public PooledPasswordEncoder passwordEncoder(@Value("${auth.password-hashing.algorithm:bcrypt}") String algorithm,
+                                                 @Value("${auth.password-hashing.bcrypt-strength:10}") int strength,
+                                                 @Value("${auth.password-hashing.pbkdf2-iterations:310000}") int pbkdf2Iterations,
+                                                 @Value("${auth.password-hashing.threads:0}") int threads,
+                                                 @Value("${auth.password-hashing.queue-capacity:64}") int queueCapacity,
+                                                 @Value("${auth.password-hashing.retry-after-seconds:1}") long retryAfterSeconds) {
+        // 0 threads means one per available core
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new PooledPasswordEncoder(delegatingPasswordEncoder(algorithm, strength, pbkdf2Iterations), poolSize,
+                queueCapacity, retryAfterSeconds, statsDClient, meterRegistry);
+    }
+
+    // New hashes are stored as {algorithm}hash. Hashes written before the prefix was added are
+    // plain BCrypt, so they are matched with BCrypt and upgraded on the next login.
+    static DelegatingPasswordEncoder delegatingPasswordEncoder(String algorithm, int bcryptStrength, int pbkdf2Iterations) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", bcrypt);
+        encoders.put("pbkdf2", new Pbkdf2PasswordEncoder("", 16, pbkdf2Iterations,
+                Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256));
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(algorithm, encoders);
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+        return delegating;
     }
 
     @Bean
-    public DaoAuthenticationProvider authenticationProvider() {
+    public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder, PasswordUpgradeService passwordUpgradeService) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService());
-        authProvider.setPasswordEncoder(passwordEncoder());
-        return authProvider;
+        authProvider.setPasswordEncoder(passwordEncoder);
+        return new CachingAuthenticationProvider(authProvider, verifiedCredentialCache, passwordUpgradeService);
     }
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http.csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(authorizeRequests -> authorizeRequests
-                        .requestMatchers("/v1/user/self", "/v1/user/self/pic").authenticated()
+                        .requestMatchers("/v1/user/self", "/v1/user/self/pic", "/v1/user/self/token").authenticated()
                         .anyRequest().permitAll()
                 )
-                .addFilterAfter(new EmailVerificationFilter(userRepository), SecurityContextHolderAwareRequestFilter.class)
+                // Bearer session tokens are checked first, Basic stays as the fallback
+                .addFilterBefore(new SessionTokenAuthenticationFilter(sessionTokenService, statsDClient), BasicAuthenticationFilter.class)
+                .addFilterAfter(new EmailVerificationFilter(), SecurityContextHolderAwareRequestFilter.class)
                 .httpBasic(httpBasic -> httpBasic.authenticationEntryPoint(customAuthenticationEntryPoint));
+        if (rateLimitFilter != null) {
+            http.addFilterAfter(new AccountRateLimitFilter(rateLimitFilter), BasicAuthenticationFilter.class);
+        }
 
         return http.build();
     }
@@ -0,0 +1,57 @@
+package com.csye6225.webapp.security;
+
+import com.timgroup.statsd.StatsDClient;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextRepository;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Authenticates "Authorization: Bearer <session token>" requests with an HMAC check and no DB
+// access. Requests with Basic credentials pass through to the BasicAuthenticationFilter, and a
+// bad token leaves the request unauthenticated, so it is answered with 401.
+public class SessionTokenAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final SessionTokenService sessionTokenService;
+
+    private final StatsDClient statsDClient;
+
+    // As BasicAuthenticationFilter does: this filter is skipped on the async dispatch of the
+    // profile picture endpoints, which then take the context from the request attribute
+    private final SecurityContextRepository securityContextRepository = new RequestAttributeSecurityContextRepository();
+
+    public SessionTokenAuthenticationFilter(SessionTokenService sessionTokenService, StatsDClient statsDClient) {
+        this.sessionTokenService = sessionTokenService;
+        this.statsDClient = statsDClient;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            SessionTokenPrincipal principal = sessionTokenService.verify(header.substring(BEARER_PREFIX.length()).trim());
+            if (principal != null) {
+                statsDClient.incrementCounter("auth.sessionToken.accepted_count");
+                SecurityContext context = SecurityContextHolder.createEmptyContext();
+                context.setAuthentication(UsernamePasswordAuthenticationToken.authenticated(principal, null, AuthorityUtils.NO_AUTHORITIES));
+                SecurityContextHolder.setContext(context);
+                securityContextRepository.saveContext(context, request, response);
+            } else {
+                statsDClient.incrementCounter("auth.sessionToken.rejected_count");
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+}
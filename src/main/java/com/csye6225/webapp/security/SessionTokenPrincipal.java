@@ -0,0 +1,16 @@
+package com.csye6225.webapp.security;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+import java.time.Instant;
+
+// Principal of a request authenticated with a session token. It only has what the token carries;
+// handlers that need the rest of the user row load it from the entity cache.
+public record SessionTokenPrincipal(Long id, String email, boolean emailVerified, Instant expiresAt)
+        implements AuthenticatedPrincipal {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
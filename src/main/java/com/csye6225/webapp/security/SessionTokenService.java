@@ -0,0 +1,108 @@
+package com.csye6225.webapp.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+// Issues and checks stateless session tokens: base64url("id:verified:expiresAt:email") + "." +
+// base64url(HMAC-SHA256 of that payload). Checking one is an HMAC, with no lookup, so tokens
+// cannot be revoked and stay valid until they expire, even across a password change.
+@Component
+public class SessionTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionTokenService.class);
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec secretKey;
+
+    private final Duration ttl;
+
+    private final Clock clock;
+
+    @Autowired
+    public SessionTokenService(@Value("${auth.session-token.secret:}") String secret,
+                               @Value("${auth.session-token.ttl-seconds:900}") long ttlSeconds) {
+        this(secret, Duration.ofSeconds(ttlSeconds), Clock.systemUTC());
+    }
+
+    SessionTokenService(String secret, Duration ttl, Clock clock) {
+        byte[] key;
+        if (secret == null || secret.isBlank()) {
+            // Only this instance can check its tokens, set the secret when running more than one
+            logger.warn("auth.session-token.secret is not set, using a random per-process key");
+            key = new byte[32];
+            new SecureRandom().nextBytes(key);
+        } else {
+            key = Base64.getDecoder().decode(secret);
+        }
+        this.secretKey = new SecretKeySpec(key, HMAC_ALGORITHM);
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public String issue(UserPrincipal principal) {
+        long expiresAt = clock.instant().plus(ttl).getEpochSecond();
+        String payload = principal.getId() + ":" + (principal.isEmailVerified() ? 1 : 0) + ":" + expiresAt + ":" + principal.getEmail();
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(payloadBytes) + "." + ENCODER.encodeToString(sign(payloadBytes));
+    }
+
+    // Returns null for a malformed, forged or expired token
+    public SessionTokenPrincipal verify(String token) {
+        int dot = token.indexOf('.');
+        if (dot < 0) {
+            return null;
+        }
+        try {
+            byte[] payloadBytes = DECODER.decode(token.substring(0, dot));
+            if (!MessageDigest.isEqual(sign(payloadBytes), DECODER.decode(token.substring(dot + 1)))) {
+                return null;
+            }
+
+            String[] fields = new String(payloadBytes, StandardCharsets.UTF_8).split(":", 4);
+            if (fields.length != 4) {
+                return null;
+            }
+            Instant expiresAt = Instant.ofEpochSecond(Long.parseLong(fields[2]));
+            if (!clock.instant().isBefore(expiresAt)) {
+                return null;
+            }
+            return new SessionTokenPrincipal(Long.parseLong(fields[0]), fields[3], "1".equals(fields[1]), expiresAt);
+        } catch (IllegalArgumentException e) {
+            // Bad base64 or number
+            return null;
+        }
+    }
+
+    private byte[] sign(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(secretKey);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.csye6225.webapp.security;
+
+import com.csye6225.webapp.model.User;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+
+// Authenticated principal carrying the user row loaded during authentication, so the
+// EmailVerificationFilter and UserService do not have to query it again.
+public class UserPrincipal implements UserDetails, CredentialsContainer {
+
+    private final Long id;
+    private final String email;
+    private String password;
+    private final String firstName;
+    private final String lastName;
+    private final boolean emailVerified;
+    private final String profilePicUrl;
+    private final LocalDateTime accountCreated;
+    private final LocalDateTime accountUpdated;
+
+    public UserPrincipal(Long id, String email, String password, String firstName, String lastName, boolean emailVerified,
+                         String profilePicUrl, LocalDateTime accountCreated, LocalDateTime accountUpdated) {
+        this.id = id;
+        this.email = email;
+        this.password = password;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.emailVerified = emailVerified;
+        this.profilePicUrl = profilePicUrl;
+        this.accountCreated = accountCreated;
+        this.accountUpdated = accountUpdated;
+    }
+
+    public static UserPrincipal from(User user) {
+        return new UserPrincipal(user.getId(), user.getEmail(), user.getPassword(), user.getFirstName(), user.getLastName(),
+                Boolean.TRUE.equals(user.getEmailVerified()), user.getProfilePicUrl(), user.getAccountCreated(), user.getAccountUpdated());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public boolean isEmailVerified() {
+        return emailVerified;
+    }
+
+    public String getProfilePicUrl() {
+        return profilePicUrl;
+    }
+
+    public LocalDateTime getAccountCreated() {
+        return accountCreated;
+    }
+
+    public LocalDateTime getAccountUpdated() {
+        return accountUpdated;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void eraseCredentials() {
+        this.password = null;
+    }
+}
@@ -0,0 +1,90 @@
+package com.csye6225.webapp.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.timgroup.statsd.StatsDClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+
+// Remembers recently verified Basic-auth credentials so repeat requests skip the DB lookup and BCrypt.
+// Only an HMAC of (email, password) under a per-process key is kept, never the password itself.
+@Component
+public class VerifiedCredentialCache {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final Cache<String, CachedCredential> cache;
+
+    private final SecretKeySpec secretKey;
+
+    private final StatsDClient statsDClient;
+
+    public VerifiedCredentialCache(StatsDClient statsDClient,
+                                   @Value("${auth.credential-cache.max-size:10000}") long maxSize,
+                                   @Value("${auth.credential-cache.ttl-seconds:120}") long ttlSeconds) {
+        this.statsDClient = statsDClient;
+
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.secretKey = new SecretKeySpec(secret, HMAC_ALGORITHM);
+
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .removalListener((String email, CachedCredential credential, RemovalCause cause) -> {
+                    if (cause.wasEvicted()) {
+                        statsDClient.incrementCounter("auth.credentialCache.eviction_count");
+                    }
+                })
+                .build();
+    }
+
+    public UserDetails get(String email, String password) {
+        CachedCredential credential = cache.getIfPresent(email);
+        if (credential != null && MessageDigest.isEqual(credential.digest(), digest(email, password))) {
+            statsDClient.incrementCounter("auth.credentialCache.hit_count");
+            return credential.userDetails();
+        }
+        statsDClient.incrementCounter("auth.credentialCache.miss_count");
+        return null;
+    }
+
+    // Same check as get, without counting a hit or miss: used to tell whether a submitted password is the cached one
+    public boolean matches(String email, String password) {
+        CachedCredential credential = cache.getIfPresent(email);
+        return credential != null && MessageDigest.isEqual(credential.digest(), digest(email, password));
+    }
+
+    public void put(String email, String password, UserDetails userDetails) {
+        cache.put(email, new CachedCredential(digest(email, password), userDetails));
+    }
+
+    public void invalidate(String email) {
+        cache.invalidate(email);
+    }
+
+    private byte[] digest(String email, String password) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(secretKey);
+            mac.update(email.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+
+    private record CachedCredential(byte[] digest, UserDetails userDetails) {
+    }
+}
@@ -1,12 +1,14 @@
 package com.csye6225.webapp.service;
 
-import com.csye6225.webapp.model.SentEmail;
 import com.csye6225.webapp.model.User;
 import com.csye6225.webapp.repository.SentEmailRepository;
-import com.csye6225.webapp.repository.UserRepository;
+import com.csye6225.webapp.repository.TokenVerification;
+import com.csye6225.webapp.security.VerifiedCredentialCache;
+import jakarta.persistence.EntityManagerFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
@@ -20,41 +22,44 @@ public class EmailVerificationService {
     private SentEmailRepository sentEmailRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private VerifiedCredentialCache verifiedCredentialCache;
+
+    @Value("${verification.token.ttl-seconds:120}")
+    private long tokenTtlSeconds;
 
     public String verifyEmail(String token) {
         logger.info("Verifying email with token: {}", token);
 
-        // Retrieve the email verification entry by token
-        SentEmail sentEmail = sentEmailRepository.findByToken(token)
-                .orElseThrow(() -> {
-                    logger.warn("Invalid token: {}", token);
-                    return new IllegalArgumentException("Invalid token");
-                });
+        // Expiry check, user update and token status change in one statement (see SentEmailRepositoryCustomImpl)
+        TokenVerification verification = sentEmailRepository.verifyToken(token, Instant.now().minusSeconds(tokenTtlSeconds));
 
-        logger.info("Email token found for email: {}", sentEmail.getEmail());
-
-        // Check if the token is expired
-        if (sentEmail.getSentAt().toInstant().plusSeconds(120).isBefore(Instant.now())) {
-            logger.warn("Token expired for email: {}", sentEmail.getEmail());
-            throw new IllegalArgumentException("Token has expired");
+        switch (verification.result()) {
+            case INVALID -> {
+                logger.warn("Invalid token: {}", token);
+                throw new IllegalArgumentException("Invalid token");
+            }
+            case EXPIRED -> {
+                logger.warn("Token expired for email: {}", verification.email());
+                throw new IllegalArgumentException("Token has expired");
+            }
+            case USER_NOT_FOUND -> {
+                logger.error("User not found for email: {}", verification.email());
+                throw new IllegalArgumentException("User not found");
+            }
+            case ALREADY_VERIFIED ->
+                    // Repeat clicks on the same link succeed without writing anything
+                    logger.info("Email already verified for email: {}", verification.email());
+            case VERIFIED -> {
+                // The user row was updated with SQL, so drop the stale cached entity and any
+                // cached principal that still says unverified
+                entityManagerFactory.getCache().evict(User.class, verification.userId());
+                verifiedCredentialCache.invalidate(verification.email());
+                logger.info("Email verification completed for email: {}", verification.email());
+            }
         }
-
-        // Mark the user as verified
-        User user = userRepository.findByEmail(sentEmail.getEmail());
-        if (user == null) {
-            logger.error("User not found for email: {}", sentEmail.getEmail());
-            throw new IllegalArgumentException("User not found");
-        }
-
-        logger.info("Marking user as verified for email: {}", user.getEmail());
-        user.setEmailVerified(true);
-        userRepository.save(user);
-
-        sentEmail.setStatus("VERIFIED");
-        sentEmailRepository.save(sentEmail);
-
-        logger.info("Email verification completed for email: {}", user.getEmail());
         return "Email successfully verified!";
     }
 }
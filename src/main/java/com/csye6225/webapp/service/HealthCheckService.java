@@ -1,6 +1,6 @@
 package com.csye6225.webapp.service;
 
-import com.timgroup.statsd.StatsDClient;
+import com.csye6225.webapp.metrics.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
@@ -11,20 +11,10 @@ public class HealthCheckService {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
-    @Autowired
-    private StatsDClient statsDClient;
-
+    @Timed("db.isDatabaseConnected")
     public boolean isDatabaseConnected() {
-        // Start timer for the database connection check
-        long start = System.currentTimeMillis();
-
         try {
             jdbcTemplate.execute("SELECT 1");
-
-            // Record execution time
-            long duration = System.currentTimeMillis() - start;
-            statsDClient.recordExecutionTime("db.isDatabaseConnected.time", duration);
-
             return true;
         } catch (Exception e) {
             return false;
@@ -0,0 +1,176 @@
+package com.csye6225.webapp.service;
+
+import com.csye6225.webapp.metrics.Timers;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.sns.SnsAsyncClient;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Probes the database (and optionally S3 and SNS) in the background and publishes the result
+// as an immutable snapshot, so /healthz answers without borrowing a pool connection. Runs on
+// its own thread rather than @Scheduled: the shared scheduler also runs the outbox relay and
+// the S3 reconciler, and a long reconcile must not make the instance look stale.
+@Component
+public class HealthMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(HealthMonitor.class);
+
+    // Served to unauthenticated callers by /healthz/probes, so it carries no error details: those are only logged
+    public record ProbeResult(boolean up, long latencyMicros, List<Long> latencyHistoryMicros) {
+    }
+
+    public record HealthSnapshot(Instant checkedAt, Map<String, ProbeResult> probes) {
+
+        static final HealthSnapshot STARTING = new HealthSnapshot(null, Map.of());
+
+        public boolean isUp() {
+            return checkedAt != null && probes.values().stream().allMatch(ProbeResult::up);
+        }
+    }
+
+    private final DataSource dataSource;
+
+    private final MeterRegistry meterRegistry;
+
+    private final long intervalMillis;
+
+    private final int timeoutSeconds;
+
+    private final Duration staleAfter;
+
+    private final int historySize;
+
+    private final Map<String, Callable<?>> probes = new LinkedHashMap<>();
+
+    private final Map<String, Timer> timers = new LinkedHashMap<>();
+
+    private final AtomicReference<HealthSnapshot> snapshot = new AtomicReference<>(HealthSnapshot.STARTING);
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("health-monitor").daemon().factory());
+
+    public HealthMonitor(DataSource dataSource,
+                         S3AsyncClient s3AsyncClient,
+                         SnsAsyncClient snsAsyncClient,
+                         MeterRegistry meterRegistry,
+                         @Value("${health.probe.interval-ms:5000}") long intervalMillis,
+                         @Value("${health.probe.timeout-seconds:2}") int timeoutSeconds,
+                         @Value("${health.probe.stale-after-ms:15000}") long staleAfterMillis,
+                         @Value("${health.probe.history-size:60}") int historySize,
+                         @Value("${health.probe.s3.enabled:false}") boolean s3Enabled,
+                         @Value("${health.probe.sns.enabled:false}") boolean snsEnabled,
+                         @Value("${aws.s3.bucket}") String bucketName,
+                         @Value("${aws.sns.topic-arn:}") String topicArn) {
+        this.dataSource = dataSource;
+        this.meterRegistry = meterRegistry;
+        this.intervalMillis = intervalMillis;
+        this.timeoutSeconds = timeoutSeconds;
+        this.staleAfter = Duration.ofMillis(staleAfterMillis);
+        this.historySize = historySize;
+
+        probes.put("database", this::probeDatabase);
+        if (s3Enabled) {
+            probes.put("s3", () -> s3AsyncClient.headBucket(b -> b.bucket(bucketName)).get(timeoutSeconds, TimeUnit.SECONDS));
+        }
+        if (snsEnabled) {
+            probes.put("sns", () -> snsAsyncClient.getTopicAttributes(b -> b.topicArn(topicArn)).get(timeoutSeconds, TimeUnit.SECONDS));
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        executor.scheduleWithFixedDelay(this::probe, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public HealthSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    // Ready to take traffic: every probe passed in a recent round
+    public boolean isReady() {
+        HealthSnapshot current = snapshot.get();
+        return current.isUp() && !isStale(current);
+    }
+
+    // The process is working as long as the probe loop keeps running, whatever the probes say.
+    // A restart will not bring a database back, so dependencies only affect readiness.
+    public boolean isLive() {
+        HealthSnapshot current = snapshot.get();
+        return current.checkedAt() == null || !isStale(current);
+    }
+
+    void probe() {
+        HealthSnapshot previous = snapshot.get();
+        Map<String, ProbeResult> results = new LinkedHashMap<>();
+        probes.forEach((name, probe) -> {
+            long start = System.nanoTime();
+            Exception failure = null;
+            try {
+                probe.call();
+            } catch (Exception e) {
+                failure = e;
+            }
+            long latencyNanos = System.nanoTime() - start;
+            timers.computeIfAbsent(name, n -> Timers.timer(meterRegistry, "health.probe." + n))
+                    .record(latencyNanos, TimeUnit.NANOSECONDS);
+
+            long latencyMicros = TimeUnit.NANOSECONDS.toMicros(latencyNanos);
+            ProbeResult last = previous.probes().get(name);
+            results.put(name, new ProbeResult(failure == null, latencyMicros,
+                    appendHistory(last == null ? List.of() : last.latencyHistoryMicros(), latencyMicros)));
+            if (failure != null && (last == null || last.up())) {
+                logger.error("Health probe {} failed", name, failure);
+            } else if (failure == null && last != null && !last.up()) {
+                logger.info("Health probe {} recovered", name);
+            }
+        });
+        snapshot.set(new HealthSnapshot(Instant.now(), Collections.unmodifiableMap(results)));
+    }
+
+    private Object probeDatabase() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            if (!connection.isValid(timeoutSeconds)) {
+                throw new SQLException("Connection is not valid");
+            }
+        }
+        return null;
+    }
+
+    private List<Long> appendHistory(List<Long> history, long latencyMicros) {
+        List<Long> updated = new ArrayList<>(Math.min(history.size() + 1, historySize));
+        updated.addAll(history.size() < historySize ? history : history.subList(history.size() - historySize + 1, history.size()));
+        updated.add(latencyMicros);
+        return Collections.unmodifiableList(updated);
+    }
+
+    private boolean isStale(HealthSnapshot current) {
+        return current.checkedAt() == null || current.checkedAt().plus(staleAfter).isBefore(Instant.now());
+    }
+}
@@ -0,0 +1,68 @@
+package com.csye6225.webapp.service;
+
+import com.timgroup.statsd.StatsDClient;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+// Sends Hibernate's cumulative statistics to StatsD as per-interval counts, mainly to watch
+// how often User lookups are served by the second-level and natural-id caches.
+@Component
+public class HibernateStatisticsReporter {
+
+    private static final Map<String, ToLongFunction<Statistics>> COUNTERS = new LinkedHashMap<>();
+
+    static {
+        COUNTERS.put("db.hibernate.secondLevelCache.hit_count", Statistics::getSecondLevelCacheHitCount);
+        COUNTERS.put("db.hibernate.secondLevelCache.miss_count", Statistics::getSecondLevelCacheMissCount);
+        COUNTERS.put("db.hibernate.secondLevelCache.put_count", Statistics::getSecondLevelCachePutCount);
+        COUNTERS.put("db.hibernate.naturalIdCache.hit_count", Statistics::getNaturalIdCacheHitCount);
+        COUNTERS.put("db.hibernate.naturalIdCache.miss_count", Statistics::getNaturalIdCacheMissCount);
+        COUNTERS.put("db.hibernate.naturalIdCache.put_count", Statistics::getNaturalIdCachePutCount);
+        COUNTERS.put("db.hibernate.naturalIdQuery.count", Statistics::getNaturalIdQueryExecutionCount);
+        COUNTERS.put("db.hibernate.entityLoad.count", Statistics::getEntityLoadCount);
+        COUNTERS.put("db.hibernate.query.count", Statistics::getQueryExecutionCount);
+        COUNTERS.put("db.hibernate.prepareStatement.count", Statistics::getPrepareStatementCount);
+        COUNTERS.put("db.hibernate.transaction.count", Statistics::getTransactionCount);
+    }
+
+    private final Statistics statistics;
+
+    private final StatsDClient statsDClient;
+
+    private final Map<String, Long> lastValues = new LinkedHashMap<>();
+
+    public HibernateStatisticsReporter(EntityManagerFactory entityManagerFactory, StatsDClient statsDClient) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.statsDClient = statsDClient;
+    }
+
+    @Scheduled(fixedRateString = "${hibernate.statistics.report-interval-ms:10000}")
+    public void report() {
+        if (!statistics.isStatisticsEnabled()) {
+            return;
+        }
+        COUNTERS.forEach((aspect, counter) -> {
+            long value = counter.applyAsLong(statistics);
+            long previous = lastValues.getOrDefault(aspect, 0L);
+            lastValues.put(aspect, value);
+            // Statistics can be cleared (tests do), so a drop restarts from zero
+            statsDClient.count(aspect, value >= previous ? value - previous : value);
+        });
+        statsDClient.recordGaugeValue("db.hibernate.secondLevelCache.hit_ratio",
+                hitRatio(statistics.getSecondLevelCacheHitCount(), statistics.getSecondLevelCacheMissCount()));
+        statsDClient.recordGaugeValue("db.hibernate.naturalIdCache.hit_ratio",
+                hitRatio(statistics.getNaturalIdCacheHitCount(), statistics.getNaturalIdCacheMissCount()));
+    }
+
+    private static double hitRatio(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? 0 : hits * 100.0 / total;
+    }
+}
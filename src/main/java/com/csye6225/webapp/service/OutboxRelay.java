@@ -0,0 +1,203 @@
+package com.csye6225.webapp.service;
+
+import com.csye6225.webapp.metrics.Timers;
+import com.csye6225.webapp.model.OutboxEvent;
+import com.csye6225.webapp.repository.OutboxEventRepository;
+import com.timgroup.statsd.StatsDClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Drains the outbox_events table to the verification topic in three steps, so no connection or
+// row lock is held while SNS is called:
+// 1. claim: a short transaction locks due events with FOR UPDATE SKIP LOCKED, counts the attempt
+//    and leases them by moving next_attempt_at claim-timeout ahead, so other instances skip them
+// 2. publish, outside any transaction
+// 3. mark: published events are deleted; failed ones are rescheduled with exponential backoff,
+//    or dead-lettered after max-attempts
+// A failing event is only retried when due, so it never holds up the events behind it. Delivery
+// is at-least-once: a crash between publish and mark re-sends the batch once the lease expires.
+@Component
+@ConditionalOnProperty(name = "outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    // SNS PublishBatch accepts at most 10 entries per call
+    private static final int PUBLISH_BATCH_SIZE = 10;
+
+    private final OutboxEventRepository outboxEventRepository;
+
+    private final VerificationTopic verificationTopic;
+
+    private final StatsDClient statsDClient;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Timer batchTimer;
+
+    private final Clock clock;
+
+    private final int batchSize;
+
+    private final int maxBatchesPerPoll;
+
+    private final Duration claimTimeout;
+
+    private final int maxAttempts;
+
+    private final Duration initialBackoff;
+
+    private final Duration maxBackoff;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       VerificationTopic verificationTopic,
+                       StatsDClient statsDClient,
+                       MeterRegistry meterRegistry,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${outbox.relay.batch-size:100}") int batchSize,
+                       @Value("${outbox.relay.max-batches-per-poll:10}") int maxBatchesPerPoll,
+                       @Value("${outbox.relay.claim-timeout-ms:60000}") long claimTimeoutMillis,
+                       @Value("${outbox.relay.max-attempts:10}") int maxAttempts,
+                       @Value("${outbox.relay.initial-backoff-ms:1000}") long initialBackoffMillis,
+                       @Value("${outbox.relay.max-backoff-ms:300000}") long maxBackoffMillis) {
+        this(outboxEventRepository, verificationTopic, statsDClient, meterRegistry, transactionManager, Clock.systemUTC(),
+                batchSize, maxBatchesPerPoll, Duration.ofMillis(claimTimeoutMillis), maxAttempts,
+                Duration.ofMillis(initialBackoffMillis), Duration.ofMillis(maxBackoffMillis));
+    }
+
+    OutboxRelay(OutboxEventRepository outboxEventRepository, VerificationTopic verificationTopic, StatsDClient statsDClient,
+                MeterRegistry meterRegistry, PlatformTransactionManager transactionManager, Clock clock, int batchSize,
+                int maxBatchesPerPoll, Duration claimTimeout, int maxAttempts, Duration initialBackoff, Duration maxBackoff) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.verificationTopic = verificationTopic;
+        this.statsDClient = statsDClient;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchTimer = Timers.timer(meterRegistry, "outbox.relay.batch");
+        this.clock = clock;
+        this.batchSize = batchSize;
+        this.maxBatchesPerPoll = maxBatchesPerPoll;
+        this.claimTimeout = claimTimeout;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.poll-interval-ms:500}")
+    public void relay() {
+        for (int i = 0; i < maxBatchesPerPoll; i++) {
+            try {
+                BatchResult result = relayBatch();
+                // Keep draining only while batches come back full and publishing is healthy
+                if (result.claimed() < batchSize || result.published() == 0) {
+                    return;
+                }
+            } catch (RuntimeException e) {
+                logger.error("Outbox relay failed: {}", e.getMessage());
+                return;
+            }
+        }
+    }
+
+    BatchResult relayBatch() {
+        long start = System.nanoTime();
+        Instant now = Instant.now(clock);
+        List<OutboxEvent> events = transactionTemplate.execute(status -> claim(now));
+        if (events == null || events.isEmpty()) {
+            statsDClient.recordGaugeValue("outbox.relay.lag_ms", 0);
+            return new BatchResult(0, 0);
+        }
+
+        // Age of the oldest due event
+        statsDClient.recordGaugeValue("outbox.relay.lag_ms", now.toEpochMilli() - events.get(0).getCreatedAt().getTime());
+
+        List<Long> published = new ArrayList<>(events.size());
+        List<OutboxEvent> failed = new ArrayList<>();
+        for (int from = 0; from < events.size(); from += PUBLISH_BATCH_SIZE) {
+            List<OutboxEvent> chunk = events.subList(from, Math.min(from + PUBLISH_BATCH_SIZE, events.size()));
+            List<String> payloads = new ArrayList<>(chunk.size());
+            chunk.forEach(event -> payloads.add(event.getPayload()));
+
+            List<Integer> failedIndexes;
+            try {
+                failedIndexes = verificationTopic.publishBatch(payloads);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to publish {} outbox events: {}", chunk.size(), e.getMessage());
+                failed.addAll(chunk);
+                continue;
+            }
+            for (int i = 0; i < chunk.size(); i++) {
+                if (failedIndexes.contains(i)) {
+                    failed.add(chunk.get(i));
+                } else {
+                    published.add(chunk.get(i).getId());
+                }
+            }
+        }
+
+        int deadLettered = transactionTemplate.execute(status -> mark(published, failed));
+
+        batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        statsDClient.count("outbox.relay.published_count", published.size());
+        if (!failed.isEmpty()) {
+            statsDClient.count("outbox.relay.failed_count", failed.size());
+        }
+        if (deadLettered > 0) {
+            statsDClient.count("outbox.relay.dead_lettered_count", deadLettered);
+        }
+        return new BatchResult(events.size(), published.size());
+    }
+
+    private List<OutboxEvent> claim(Instant now) {
+        List<OutboxEvent> events = outboxEventRepository.lockNextBatch(Timestamp.from(now), batchSize);
+        Timestamp leasedUntil = Timestamp.from(now.plus(claimTimeout));
+        for (OutboxEvent event : events) {
+            // Managed, so the commit writes both
+            event.setAttempts(event.getAttempts() + 1);
+            event.setNextAttemptAt(leasedUntil);
+        }
+        return events;
+    }
+
+    private int mark(List<Long> published, List<OutboxEvent> failed) {
+        outboxEventRepository.deleteAllByIdInBatch(published);
+
+        Instant now = Instant.now(clock);
+        int deadLettered = 0;
+        for (OutboxEvent event : failed) {
+            if (event.getAttempts() >= maxAttempts) {
+                outboxEventRepository.deadLetter(event.getId(), Timestamp.from(now));
+                deadLettered++;
+                logger.error("Outbox event {} dead-lettered after {} attempts", event.getId(), event.getAttempts());
+            } else {
+                outboxEventRepository.reschedule(event.getId(), Timestamp.from(now.plus(backoff(event.getAttempts()))));
+            }
+        }
+        return deadLettered;
+    }
+
+    // initial-backoff doubled for every attempt after the first, capped at max-backoff
+    Duration backoff(int attempts) {
+        int doublings = Math.min(attempts - 1, 30);
+        Duration backoff = initialBackoff.multipliedBy(1L << doublings);
+        return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+    }
+
+    record BatchResult(int claimed, int published) {
+    }
+}
@@ -0,0 +1,82 @@
+package com.csye6225.webapp.service;
+
+import com.csye6225.webapp.repository.UserRepository;
+import com.timgroup.statsd.StatsDClient;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Rehashes a user's password with the configured algorithm and cost after a successful login
+// against an outdated hash. It runs off the request thread and is best effort: if the queue is
+// full or the update fails, the next login tries again.
+@Service
+public class PasswordUpgradeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordUpgradeService.class);
+
+    private final UserRepository userRepository;
+
+    private final PasswordEncoder passwordEncoder;
+
+    private final StatsDClient statsDClient;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ThreadPoolExecutor executor;
+
+    public PasswordUpgradeService(UserRepository userRepository,
+                                  PasswordEncoder passwordEncoder,
+                                  StatsDClient statsDClient,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${auth.password-upgrade.queue-capacity:1000}") int queueCapacity) {
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.statsDClient = statsDClient;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("password-upgrade-", 0).daemon().factory());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public boolean needsUpgrade(String encodedPassword) {
+        return encodedPassword != null && passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    // encodedPassword is the hash the login was verified against; the row is only updated if it
+    // still holds that hash, so a password change in the meantime is never overwritten
+    public void upgradeAsync(Long userId, String rawPassword, String encodedPassword) {
+        try {
+            executor.execute(() -> upgrade(userId, rawPassword, encodedPassword));
+        } catch (RejectedExecutionException e) {
+            statsDClient.incrementCounter("auth.passwordUpgrade.dropped_count");
+        }
+    }
+
+    void upgrade(Long userId, String rawPassword, String encodedPassword) {
+        try {
+            String upgraded = passwordEncoder.encode(rawPassword);
+            Integer updated = transactionTemplate.execute(status ->
+                    userRepository.updatePasswordIfUnchanged(userId, encodedPassword, upgraded));
+            if (updated != null && updated == 1) {
+                statsDClient.incrementCounter("auth.passwordUpgrade.count");
+            }
+        } catch (RuntimeException e) {
+            statsDClient.incrementCounter("auth.passwordUpgrade.failed_count");
+            logger.warn("Failed to upgrade password hash for user {}: {}", userId, e.getMessage());
+        }
+    }
+}
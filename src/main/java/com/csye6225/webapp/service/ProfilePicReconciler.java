@@ -0,0 +1,134 @@
+package com.csye6225.webapp.service;
+
+import com.csye6225.webapp.metrics.Timed;
+import com.csye6225.webapp.model.User;
+import com.csye6225.webapp.repository.UserRepository;
+import com.csye6225.webapp.security.VerifiedCredentialCache;
+import com.timgroup.statsd.StatsDClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// The request path trusts users.profile_pic_url instead of asking S3 whether the object exists.
+// This job catches rows whose object has gone missing (deleted out of band, lifecycle rules,
+// a failed delete) and clears them. Users are paged by id and each page is merged against the
+// bucket listing: its keys are sorted into S3's byte order and the listing is walked alongside.
+// Keys are profile-pictures/{id}/{file} with unpadded ids, so a page of ids is spread over the
+// bucket; the walk skips from one user's folder to the next with StartAfter rather than paging
+// through the keys in between. That costs one ListObjectsV2 call per page of neighbouring keys
+// and at most one per user, and holds no more than a page of users and a page of keys.
+@Component
+@ConditionalOnProperty(name = "aws.s3.reconcile.enabled", havingValue = "true", matchIfMissing = true)
+public class ProfilePicReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProfilePicReconciler.class);
+
+    private static final String KEY_PREFIX = "profile-pictures/";
+
+    private final UserRepository userRepository;
+
+    private final ProfilePicStorage profilePicStorage;
+
+    private final VerifiedCredentialCache verifiedCredentialCache;
+
+    private final ProfilePicUrlCache profilePicUrlCache;
+
+    private final StatsDClient statsDClient;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int pageSize;
+
+    public ProfilePicReconciler(UserRepository userRepository,
+                                ProfilePicStorage profilePicStorage,
+                                VerifiedCredentialCache verifiedCredentialCache,
+                                ProfilePicUrlCache profilePicUrlCache,
+                                StatsDClient statsDClient,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${aws.s3.reconcile.page-size:1000}") int pageSize) {
+        this.userRepository = userRepository;
+        this.profilePicStorage = profilePicStorage;
+        this.verifiedCredentialCache = verifiedCredentialCache;
+        this.profilePicUrlCache = profilePicUrlCache;
+        this.statsDClient = statsDClient;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.pageSize = pageSize;
+    }
+
+    @Scheduled(initialDelayString = "${aws.s3.reconcile.initial-delay-ms:60000}",
+            fixedDelayString = "${aws.s3.reconcile.interval-ms:3600000}")
+    @Timed("s3.reconcile")
+    public void reconcile() {
+        try {
+            ReconcileResult result = reconcileAll();
+            logger.info("Profile picture reconciliation scanned {} users, found {} drifted, fixed {}",
+                    result.scanned(), result.drifted(), result.fixed());
+        } catch (RuntimeException e) {
+            logger.error("Profile picture reconciliation failed: {}", e.getMessage());
+        }
+    }
+
+    ReconcileResult reconcileAll() {
+        int scanned = 0;
+        int drifted = 0;
+        int fixed = 0;
+        long lastId = 0;
+
+        while (true) {
+            List<User> users = userRepository.findByProfilePicUrlIsNotNullAndIdGreaterThanOrderByIdAsc(lastId, PageRequest.ofSize(pageSize));
+            if (users.isEmpty()) {
+                break;
+            }
+            lastId = users.get(users.size() - 1).getId();
+            scanned += users.size();
+
+            List<User> byKey = new ArrayList<>(users);
+            byKey.sort(Comparator.comparing(User::getProfilePicUrl, ProfilePicStorage.KEY_ORDER));
+            ProfilePicStorage.KeyListing stored = profilePicStorage.listKeys(KEY_PREFIX, pageSize);
+            for (User user : byKey) {
+                String key = user.getProfilePicUrl();
+                stored.skipPast(key.substring(0, key.lastIndexOf('/') + 1));
+                while (stored.hasNext() && ProfilePicStorage.KEY_ORDER.compare(stored.peek(), key) < 0) {
+                    stored.next();
+                }
+                // Not in the listing may also mean uploaded since it was taken: only a HEAD that
+                // finds nothing counts as drift, which keeps HEAD requests to the rare misses
+                if (key.equals(stored.peek()) || profilePicStorage.exists(key)) {
+                    continue;
+                }
+                drifted++;
+                logger.warn("Profile picture {} for user {} is missing from S3", key, user.getId());
+                Integer updated = transactionTemplate.execute(status ->
+                        userRepository.clearProfilePicUrl(user.getId(), key));
+                if (updated != null && updated > 0) {
+                    fixed++;
+                    // The cached principal still has the missing profile picture key
+                    verifiedCredentialCache.invalidate(user.getEmail());
+                    profilePicUrlCache.invalidate(user.getId());
+                }
+            }
+
+            if (users.size() < pageSize) {
+                break;
+            }
+        }
+
+        statsDClient.count("s3.reconcile.scanned_count", scanned);
+        statsDClient.count("s3.reconcile.drift_found_count", drifted);
+        statsDClient.count("s3.reconcile.drift_fixed_count", fixed);
+        return new ReconcileResult(scanned, drifted, fixed);
+    }
+
+    record ReconcileResult(int scanned, int drifted, int fixed) {
+    }
+}
@@ -0,0 +1,334 @@
+package com.csye6225.webapp.service;
+
+import com.csye6225.webapp.exception.UploadCapacityException;
+import com.timgroup.statsd.StatsDClient;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+// Profile picture storage on the async S3 client. Every operation returns a future so callers
+// never park a servlet thread on S3 I/O. Small files are streamed with a known content length;
+// files at or above the multipart threshold are split into parts read into pooled buffers and
+// uploaded concurrently. The buffer pool is shared by all uploads and caps their memory; each
+// upload keeps at most part-concurrency of its parts in flight, so one large upload cannot take
+// every buffer, and an upload that finds none free within buffer-wait fails with a 503.
+@Component
+public class ProfilePicStorage {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProfilePicStorage.class);
+
+    // The order ListObjectsV2 returns keys in, which is not String's UTF-16 order
+    static final Comparator<String> KEY_ORDER =
+            (a, b) -> Arrays.compareUnsigned(a.getBytes(StandardCharsets.UTF_8), b.getBytes(StandardCharsets.UTF_8));
+
+    private final S3AsyncClient s3AsyncClient;
+
+    private final StatsDClient statsDClient;
+
+    private final String bucketName;
+
+    private final long multipartThreshold;
+
+    private final UploadBufferPool bufferPool;
+
+    private final int partConcurrency;
+
+    private final Duration bufferWait;
+
+    // Reads upload streams, which are blocking, off the SDK's event loop. Virtual threads when
+    // spring.threads.virtual.enabled is set, like the request and scheduler threads.
+    private final ExecutorService streamExecutor;
+
+    public ProfilePicStorage(S3AsyncClient s3AsyncClient,
+                             StatsDClient statsDClient,
+                             @Value("${aws.s3.bucket}") String bucketName,
+                             @Value("${aws.s3.upload.multipart-threshold:8MB}") DataSize multipartThreshold,
+                             @Value("${aws.s3.upload.part-size:5MB}") DataSize partSize,
+                             @Value("${aws.s3.upload.part-concurrency:4}") int partConcurrency,
+                             @Value("${aws.s3.upload.max-buffers:16}") int maxBuffers,
+                             @Value("${aws.s3.upload.buffer-wait:2s}") Duration bufferWait,
+                             @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.s3AsyncClient = s3AsyncClient;
+        this.statsDClient = statsDClient;
+        this.bucketName = bucketName;
+        this.multipartThreshold = multipartThreshold.toBytes();
+        this.bufferPool = new UploadBufferPool(Math.toIntExact(partSize.toBytes()), maxBuffers);
+        this.partConcurrency = partConcurrency;
+        this.bufferWait = bufferWait;
+        this.streamExecutor = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("s3-upload-stream-", 0).factory())
+                : Executors.newCachedThreadPool(Thread.ofPlatform().name("s3-upload-stream-", 0).daemon().factory());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        streamExecutor.shutdown();
+    }
+
+    UploadBufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    public CompletableFuture<Void> upload(String key, MultipartFile file) throws IOException {
+        return file.getSize() < multipartThreshold
+                ? putObject(key, file)
+                : multipartUpload(key, file);
+    }
+
+    // Keys under the prefix, fetched one ListObjectsV2 page at a time as the listing is walked
+    public KeyListing listKeys(String prefix, int pageSize) {
+        return new KeyListing(prefix, pageSize);
+    }
+
+    public boolean exists(String key) {
+        try {
+            s3AsyncClient.headObject(HeadObjectRequest.builder().bucket(bucketName).key(key).build()).join();
+            return true;
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof S3Exception s3Exception && s3Exception.statusCode() == 404) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    public CompletableFuture<Void> delete(String key) {
+        return s3AsyncClient.deleteObject(DeleteObjectRequest.builder().bucket(bucketName).key(key).build())
+                .thenApply(response -> null);
+    }
+
+    private CompletableFuture<Void> putObject(String key, MultipartFile file) throws IOException {
+        InputStream inputStream = file.getInputStream();
+        PutObjectRequest request = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .contentType(file.getContentType())
+                .contentLength(file.getSize())
+                .build();
+        // A known content length lets the SDK stream the file instead of buffering it
+        return s3AsyncClient.putObject(request, AsyncRequestBody.fromInputStream(inputStream, file.getSize(), streamExecutor))
+                .whenComplete((response, e) -> closeQuietly(inputStream))
+                .thenApply(response -> null);
+    }
+
+    private CompletableFuture<Void> multipartUpload(String key, MultipartFile file) {
+        CreateMultipartUploadRequest createRequest = CreateMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .contentType(file.getContentType())
+                .build();
+
+        return s3AsyncClient.createMultipartUpload(createRequest).thenCompose(created -> {
+            String uploadId = created.uploadId();
+            return CompletableFuture.supplyAsync(() -> uploadParts(key, uploadId, file), streamExecutor)
+                    .thenCompose(parts -> CompletableFuture.allOf(parts.toArray(new CompletableFuture<?>[0]))
+                            .thenApply(ignored -> parts.stream().map(CompletableFuture::join).toList()))
+                    .thenCompose(completedParts -> {
+                        statsDClient.recordGaugeValue("aws.s3.multipartUpload.part_count", completedParts.size());
+                        return s3AsyncClient.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                                .bucket(bucketName)
+                                .key(key)
+                                .uploadId(uploadId)
+                                .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+                                .build());
+                    })
+                    .handle((response, e) -> e == null ? CompletableFuture.<Void>completedFuture(null) : abort(key, uploadId, e))
+                    .thenCompose(future -> future);
+        });
+    }
+
+    private CompletableFuture<Void> abort(String key, String uploadId, Throwable cause) {
+        logger.error("Multipart upload of {} failed, aborting: {}", key, cause.getMessage());
+        CompletableFuture<Void> failed = new CompletableFuture<>();
+        s3AsyncClient.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .build())
+                .whenComplete((response, e) -> failed.completeExceptionally(cause));
+        return failed;
+    }
+
+    // Runs on the stream executor. Waits for this upload's own parts once part-concurrency of them
+    // are in flight, and for at most buffer-wait on a buffer from the shared pool
+    private List<CompletableFuture<CompletedPart>> uploadParts(String key, String uploadId, MultipartFile file) {
+        List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+        Semaphore inFlight = new Semaphore(partConcurrency);
+        try (InputStream inputStream = file.getInputStream()) {
+            for (int partNumber = 1; ; partNumber++) {
+                inFlight.acquire();
+                byte[] buffer = bufferPool.acquire(bufferWait);
+                if (buffer == null) {
+                    statsDClient.incrementCounter("aws.s3.multipartUpload.buffer_unavailable_count");
+                    throw new UploadCapacityException("No upload buffer free within " + bufferWait);
+                }
+                int length;
+                try {
+                    length = inputStream.readNBytes(buffer, 0, bufferPool.getBufferSize());
+                } catch (IOException e) {
+                    bufferPool.release(buffer);
+                    throw e;
+                }
+                if (length == 0) {
+                    bufferPool.release(buffer);
+                    break;
+                }
+
+                int number = partNumber;
+                UploadPartRequest request = UploadPartRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .partNumber(number)
+                        .contentLength((long) length)
+                        .build();
+                parts.add(s3AsyncClient.uploadPart(request, AsyncRequestBody.fromRemainingByteBufferUnsafe(ByteBuffer.wrap(buffer, 0, length)))
+                        .whenComplete((response, e) -> {
+                            bufferPool.release(buffer);
+                            inFlight.release();
+                        })
+                        .thenApply(response -> CompletedPart.builder().partNumber(number).eTag(response.eTag()).build()));
+
+                if (length < bufferPool.getBufferSize()) {
+                    break;
+                }
+            }
+            return parts;
+        } catch (UploadCapacityException e) {
+            awaitQuietly(parts);
+            throw e;
+        } catch (IOException e) {
+            awaitQuietly(parts);
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            awaitQuietly(parts);
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+    }
+
+    // Lets in-flight parts finish so their buffers go back to the pool before the upload is aborted
+    private void awaitQuietly(List<CompletableFuture<CompletedPart>> parts) {
+        CompletableFuture.allOf(parts.toArray(new CompletableFuture<?>[0])).exceptionally(e -> null).join();
+    }
+
+    private void closeQuietly(InputStream inputStream) {
+        try {
+            inputStream.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close upload stream: {}", e.getMessage());
+        }
+    }
+
+    // Iterates keys in S3's order, UTF-8 byte order, holding only the page fetched last
+    public final class KeyListing implements Iterator<String> {
+
+        private final String prefix;
+
+        private final int pageSize;
+
+        private final Deque<String> page = new ArrayDeque<>();
+
+        private String startAfter;
+
+        private String continuationToken;
+
+        private boolean lastPage;
+
+        private KeyListing(String prefix, int pageSize) {
+            this.prefix = prefix;
+            this.pageSize = pageSize;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (page.isEmpty() && !lastPage) {
+                fetch();
+            }
+            return !page.isEmpty();
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.removeFirst();
+        }
+
+        // The next key without consuming it, or null once the listing is exhausted
+        public String peek() {
+            return hasNext() ? page.peekFirst() : null;
+        }
+
+        // Moves past every key up to and including the given one. Keys already fetched are dropped
+        // for free; past the end of the page the next fetch starts after the given key instead of
+        // paging through the keys in between.
+        public void skipPast(String key) {
+            while (!page.isEmpty() && KEY_ORDER.compare(page.peekFirst(), key) <= 0) {
+                page.removeFirst();
+            }
+            if (page.isEmpty() && !lastPage) {
+                startAfter = key;
+                continuationToken = null;
+            }
+        }
+
+        private void fetch() {
+            ListObjectsV2Request.Builder request = ListObjectsV2Request.builder()
+                    .bucket(bucketName)
+                    .prefix(prefix)
+                    .maxKeys(pageSize);
+            if (continuationToken != null) {
+                request.continuationToken(continuationToken);
+            } else if (startAfter != null) {
+                request.startAfter(startAfter);
+            }
+            ListObjectsV2Response response = s3AsyncClient.listObjectsV2(request.build()).join();
+            for (S3Object object : response.contents()) {
+                page.addLast(object.key());
+            }
+            lastPage = !Boolean.TRUE.equals(response.isTruncated());
+            continuationToken = response.nextContinuationToken();
+        }
+    }
+}
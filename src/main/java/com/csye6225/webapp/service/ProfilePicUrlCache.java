@@ -0,0 +1,97 @@
+package com.csye6225.webapp.service;
+
+import com.csye6225.webapp.metrics.Timers;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.timgroup.statsd.StatsDClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+// Pre-signed GET URLs for profile pictures, cached per user so repeat reads are answered from
+// memory and clients download the image from S3 directly. Entries are dropped a margin before
+// the signature expires so a cached URL always has at least that long left to run.
+@Component
+public class ProfilePicUrlCache {
+
+    private final Cache<Long, SignedUrl> cache;
+
+    private final S3Presigner s3Presigner;
+
+    private final StatsDClient statsDClient;
+
+    private final String bucketName;
+
+    private final Duration expiry;
+
+    private final Timer presignTimer;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder requests = new LongAdder();
+
+    public ProfilePicUrlCache(S3Presigner s3Presigner,
+                              StatsDClient statsDClient,
+                              MeterRegistry meterRegistry,
+                              @Value("${aws.s3.bucket}") String bucketName,
+                              @Value("${aws.s3.presign.expiry-seconds:900}") long expirySeconds,
+                              @Value("${aws.s3.presign.refresh-margin-seconds:60}") long refreshMarginSeconds,
+                              @Value("${aws.s3.presign.cache-max-size:10000}") long maxSize) {
+        if (refreshMarginSeconds >= expirySeconds) {
+            throw new IllegalArgumentException("aws.s3.presign.refresh-margin-seconds must be less than aws.s3.presign.expiry-seconds");
+        }
+        this.s3Presigner = s3Presigner;
+        this.statsDClient = statsDClient;
+        this.bucketName = bucketName;
+        this.expiry = Duration.ofSeconds(expirySeconds);
+        this.presignTimer = Timers.timer(meterRegistry, "aws.s3.presignGetObject");
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(expirySeconds - refreshMarginSeconds))
+                .build();
+    }
+
+    public String getUrl(Long userId, String key) {
+        requests.increment();
+        SignedUrl signedUrl = cache.getIfPresent(userId);
+        // A different key means the picture was replaced, the old URL is no good
+        if (signedUrl != null && signedUrl.key().equals(key)) {
+            hits.increment();
+            statsDClient.incrementCounter("aws.s3.presignedUrlCache.hit_count");
+            return signedUrl.url();
+        }
+
+        statsDClient.incrementCounter("aws.s3.presignedUrlCache.miss_count");
+        statsDClient.recordGaugeValue("aws.s3.presignedUrlCache.hit_ratio", hitRatio());
+
+        String url = presignTimer.record(() -> s3Presigner.presignGetObject(GetObjectPresignRequest.builder()
+                        .signatureDuration(expiry)
+                        .getObjectRequest(GetObjectRequest.builder().bucket(bucketName).key(key).build())
+                        .build())
+                .url()
+                .toString());
+
+        cache.put(userId, new SignedUrl(key, url));
+        return url;
+    }
+
+    public void invalidate(Long userId) {
+        cache.invalidate(userId);
+    }
+
+    // Percentage of lookups since startup that were served from the cache
+    double hitRatio() {
+        long total = requests.sum();
+        return total == 0 ? 0 : hits.sum() * 100.0 / total;
+    }
+
+    private record SignedUrl(String key, String url) {
+    }
+}
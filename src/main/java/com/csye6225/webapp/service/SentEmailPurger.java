@@ -0,0 +1,92 @@
+package com.csye6225.webapp.service;
+
+import com.csye6225.webapp.metrics.Timed;
+import com.csye6225.webapp.repository.SentEmailRepository;
+import com.timgroup.statsd.StatsDClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Instant;
+
+// Keeps sent_emails small. An unused token is only useful until it expires: after that it can
+// no longer verify. So unverified rows sent before now - TTL are deleted, oldest first, in
+// bounded batches, each in its own transaction. Verified rows are kept, at most one per user,
+// so that clicking a verified link again is still answered with success.
+@Component
+@ConditionalOnProperty(name = "verification.purge.enabled", havingValue = "true", matchIfMissing = true)
+public class SentEmailPurger {
+
+    private static final Logger logger = LoggerFactory.getLogger(SentEmailPurger.class);
+
+    private final SentEmailRepository sentEmailRepository;
+
+    private final StatsDClient statsDClient;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Clock clock;
+
+    private final long tokenTtlSeconds;
+
+    private final int batchSize;
+
+    private final int maxBatchesPerRun;
+
+    public SentEmailPurger(SentEmailRepository sentEmailRepository,
+                           StatsDClient statsDClient,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${verification.token.ttl-seconds:120}") long tokenTtlSeconds,
+                           @Value("${verification.purge.batch-size:1000}") int batchSize,
+                           @Value("${verification.purge.max-batches-per-run:100}") int maxBatchesPerRun) {
+        this(sentEmailRepository, statsDClient, transactionManager, Clock.systemUTC(), tokenTtlSeconds, batchSize, maxBatchesPerRun);
+    }
+
+    SentEmailPurger(SentEmailRepository sentEmailRepository, StatsDClient statsDClient, PlatformTransactionManager transactionManager,
+                    Clock clock, long tokenTtlSeconds, int batchSize, int maxBatchesPerRun) {
+        this.sentEmailRepository = sentEmailRepository;
+        this.statsDClient = statsDClient;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clock = clock;
+        this.tokenTtlSeconds = tokenTtlSeconds;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+    }
+
+    @Scheduled(initialDelayString = "${verification.purge.initial-delay-ms:60000}",
+            fixedDelayString = "${verification.purge.interval-ms:300000}")
+    @Timed("verification.purge")
+    public void purge() {
+        try {
+            int deleted = purgeExpired();
+            logger.info("Purged {} expired sent_emails rows", deleted);
+        } catch (RuntimeException e) {
+            logger.error("Purging sent_emails failed: {}", e.getMessage());
+        }
+    }
+
+    int purgeExpired() {
+        Timestamp cutoff = Timestamp.from(Instant.now(clock).minusSeconds(tokenTtlSeconds));
+        int deleted = 0;
+        try {
+            for (int i = 0; i < maxBatchesPerRun; i++) {
+                Integer batch = transactionTemplate.execute(status -> sentEmailRepository.deleteSentBefore(cutoff, batchSize));
+                deleted += batch == null ? 0 : batch;
+                // A short batch means nothing older than the cutoff is left; the next run picks up the rest otherwise
+                if (batch == null || batch < batchSize) {
+                    break;
+                }
+            }
+        } finally {
+            statsDClient.count("verification.purge.deleted_count", deleted);
+        }
+        return deleted;
+    }
+}
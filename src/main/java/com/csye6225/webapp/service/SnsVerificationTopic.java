@@ -0,0 +1,48 @@
+package com.csye6225.webapp.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.sns.SnsAsyncClient;
+import software.amazon.awssdk.services.sns.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequest;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequestEntry;
+import software.amazon.awssdk.services.sns.model.PublishBatchResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+public class SnsVerificationTopic implements VerificationTopic {
+
+    private final SnsAsyncClient snsAsyncClient;
+
+    private final String topicArn;
+
+    public SnsVerificationTopic(SnsAsyncClient snsAsyncClient, @Value("${aws.sns.topic-arn}") String topicArn) {
+        this.snsAsyncClient = snsAsyncClient;
+        this.topicArn = topicArn;
+    }
+
+    @Override
+    public List<Integer> publishBatch(List<String> messages) {
+        List<PublishBatchRequestEntry> entries = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            entries.add(PublishBatchRequestEntry.builder()
+                    .id(Integer.toString(i))
+                    .message(messages.get(i))
+                    .build());
+        }
+
+        // Called from the outbox relay's scheduler thread outside any transaction, so it can wait for the response
+        PublishBatchResponse response = snsAsyncClient.publishBatch(PublishBatchRequest.builder()
+                .topicArn(topicArn)
+                .publishBatchRequestEntries(entries)
+                .build()).join();
+
+        List<Integer> failed = new ArrayList<>(response.failed().size());
+        for (BatchResultErrorEntry error : response.failed()) {
+            failed.add(Integer.parseInt(error.id()));
+        }
+        return failed;
+    }
+}
@@ -0,0 +1,57 @@
+package com.csye6225.webapp.service;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Fixed-size part buffers reused across uploads. At most maxBuffers are ever allocated, which
+// bounds the memory held by in-flight multipart parts; once they are all in use acquire waits
+// for one to be released, up to the given timeout.
+class UploadBufferPool {
+
+    private final BlockingQueue<byte[]> available;
+
+    private final AtomicInteger allocated = new AtomicInteger();
+
+    private final int bufferSize;
+
+    private final int maxBuffers;
+
+    UploadBufferPool(int bufferSize, int maxBuffers) {
+        this.bufferSize = bufferSize;
+        this.maxBuffers = maxBuffers;
+        this.available = new ArrayBlockingQueue<>(maxBuffers);
+    }
+
+    // Null when no buffer was released within the timeout
+    byte[] acquire(Duration timeout) throws InterruptedException {
+        byte[] buffer = available.poll();
+        if (buffer != null) {
+            return buffer;
+        }
+        // Allocate lazily until the pool is full, then wait for a buffer to be released
+        if (allocated.getAndUpdate(count -> count < maxBuffers ? count + 1 : count) < maxBuffers) {
+            return new byte[bufferSize];
+        }
+        return available.poll(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    void release(byte[] buffer) {
+        available.offer(buffer);
+    }
+
+    int getBufferSize() {
+        return bufferSize;
+    }
+
+    // Buffers allocated so far and buffers back in the pool; equal once no upload holds one
+    int getAllocatedCount() {
+        return allocated.get();
+    }
+
+    int getAvailableCount() {
+        return available.size();
+    }
+}
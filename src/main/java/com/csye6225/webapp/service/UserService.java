@@ -1,102 +1,120 @@
 package com.csye6225.webapp.service;
 
-import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.model.DeleteObjectRequest;
-import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.csye6225.webapp.dto.ProfilePicResponseDto;
 import com.csye6225.webapp.dto.UserRequestDto;
 import com.csye6225.webapp.dto.UserResponseDto;
 import com.csye6225.webapp.dto.UserUpdateRequestDto;
 import com.csye6225.webapp.exception.UserAlreadyExistsException;
+import com.csye6225.webapp.model.OutboxEvent;
 import com.csye6225.webapp.model.User;
+import com.csye6225.webapp.repository.OutboxEventRepository;
 import com.csye6225.webapp.repository.UserRepository;
+import com.csye6225.webapp.security.UserPrincipal;
+import com.csye6225.webapp.security.VerifiedCredentialCache;
 import com.timgroup.statsd.StatsDClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
-import software.amazon.awssdk.services.sns.SnsClient;
-import software.amazon.awssdk.services.sns.model.PublishRequest;
-import software.amazon.awssdk.services.sns.model.PublishResponse;
 
 import java.io.IOException;
+import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @Service
 public class UserService {
 
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
 
+    private static final String USER_CREATED_EVENT = "USER_CREATED";
+
+    private static final String UNIQUE_VIOLATION = "23505";
+
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
-    private BCryptPasswordEncoder passwordEncoder;
+    private PasswordEncoder passwordEncoder;
 
     @Autowired
-    private StatsDClient statsDClient;
+    private VerifiedCredentialCache verifiedCredentialCache;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private ProfilePicStorage profilePicStorage;
+
+    @Autowired
+    private ProfilePicUrlCache profilePicUrlCache;
 
     @Autowired
-    private AmazonS3 amazonS3;
+    private PlatformTransactionManager transactionManager;
 
-    @Value("${aws.s3.bucket}")
-    private String bucketName;
+    @Autowired
+    private StatsDClient statsDClient;
+
+    // Runs the database write that follows an S3 call, which must not block the SDK's event loop.
+    // Spring Boot's task executor, on virtual threads when spring.threads.virtual.enabled is set
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private Executor applicationTaskExecutor;
 
     public UserResponseDto createUser(UserRequestDto userRequestDto) {
-        long startExists = System.currentTimeMillis();
         logger.info("Attempting to create user with email: {}", userRequestDto.getEmail());
 
-        if (userRepository.existsByEmail(userRequestDto.getEmail())) {
-            long durationExists = System.currentTimeMillis() - startExists;
-            statsDClient.recordExecutionTime("db.userRepository.existsByEmail.time", durationExists);
-            logger.warn("User with email {} already exists", userRequestDto.getEmail());
-            throw new UserAlreadyExistsException("User with this email already exists.");
-        }
-        long durationExists = System.currentTimeMillis() - startExists;
-        statsDClient.recordExecutionTime("db.userRepository.existsByEmail.time", durationExists);
-
         User user = new User();
         user.setEmail(userRequestDto.getEmail());
         user.setFirstName(userRequestDto.getFirstName());
         user.setLastName(userRequestDto.getLastName());
+        // Hashed before the transaction starts so no connection is held during the hash
         user.setPassword(passwordEncoder.encode(userRequestDto.getPassword()));
 
-        long startSave = System.currentTimeMillis();
-        userRepository.save(user);
-        long durationSave = System.currentTimeMillis() - startSave;
-        statsDClient.recordExecutionTime("db.userRepository.save.time", durationSave);
-        logger.info("User with email {} created successfully", userRequestDto.getEmail());
-
-        // Publish to SNS Topic
-        try (SnsClient snsClient = SnsClient.create()) {
-            logger.info("Publishing message to SNS topic for user verification");
-            PublishRequest publishRequest = PublishRequest.builder()
-                    .topicArn(System.getenv("SNS_TOPIC_ARN"))
-                    .message("{\"email\": \"" + userRequestDto.getEmail() + "\"}")
-                    .build();
-            PublishResponse response = snsClient.publish(publishRequest);
-            logger.info("SNS message published successfully. Message ID: {}", response.messageId());
-        } catch (Exception e) {
-            logger.error("Failed to publish message to SNS topic: {}", e.getMessage());
-            throw new RuntimeException("Error sending email verification message.");
+        // No existsByEmail check first: the unique constraint on email rejects a duplicate in the
+        // same round trip as the insert, and also when two signups for one email race
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                userRepository.save(user);
+
+                // Written in the same transaction as the user, the OutboxRelay publishes it to SNS
+                outboxEventRepository.save(new OutboxEvent(USER_CREATED_EVENT, "{\"email\": \"" + userRequestDto.getEmail() + "\"}"));
+            });
+        } catch (DataIntegrityViolationException e) {
+            if (!isUniqueViolation(e)) {
+                throw e;
+            }
+            logger.warn("User with email {} already exists", userRequestDto.getEmail());
+            throw new UserAlreadyExistsException("User with this email already exists.");
         }
+        logger.info("User with email {} created successfully", userRequestDto.getEmail());
 
         return mapToUserResponseDto(user);
     }
 
+    // SQLSTATE 23505 is unique_violation on both PostgreSQL and H2; email is the only unique column on users
+    private static boolean isUniqueViolation(DataIntegrityViolationException e) {
+        return NestedExceptionUtils.getMostSpecificCause(e) instanceof SQLException sqlException
+                && UNIQUE_VIOLATION.equals(sqlException.getSQLState());
+    }
+
     public UserResponseDto getUserByEmail(String email) {
-        long startFind = System.currentTimeMillis();
         logger.info("Fetching user with email: {}", email);
 
         User user = userRepository.findByEmail(email);
-        long durationFind = System.currentTimeMillis() - startFind;
-        statsDClient.recordExecutionTime("db.userRepository.findByEmail.time", durationFind);
 
         if (user == null) {
             logger.warn("User with email {} not found", email);
@@ -105,6 +123,24 @@ public class UserService {
         return mapToUserResponseDto(user);
     }
 
+    public UserResponseDto getUser(UserPrincipal principal) {
+        // The authenticated principal already holds the user row, no query needed
+        UserResponseDto userResponseDto = new UserResponseDto();
+        userResponseDto.setId(principal.getId());
+        userResponseDto.setEmail(principal.getEmail());
+        userResponseDto.setFirstName(principal.getFirstName());
+        userResponseDto.setLastName(principal.getLastName());
+        userResponseDto.setAccountCreated(principal.getAccountCreated().toString());
+        userResponseDto.setAccountUpdated(principal.getAccountUpdated().toString());
+
+        return userResponseDto;
+    }
+
+    // For requests authenticated with a session token, which does not carry the user row
+    public UserPrincipal loadPrincipal(String email) {
+        return UserPrincipal.from(userRepository.findByEmail(email));
+    }
+
     private UserResponseDto mapToUserResponseDto(User user) {
         UserResponseDto userResponseDto = new UserResponseDto();
         userResponseDto.setId(user.getId());
@@ -118,33 +154,56 @@ public class UserService {
     }
 
     public void updateUser(String email, UserUpdateRequestDto userUpdateRequestDto) {
-        long startFind = System.currentTimeMillis();
         logger.info("Updating user with email: {}", email);
 
+        // Served from the entity cache, so the only round trip is the UPDATE below
         User user = userRepository.findByEmail(email);
-        long durationFind = System.currentTimeMillis() - startFind;
-        statsDClient.recordExecutionTime("db.userRepository.findByEmail.time", durationFind);
-
-        user.setFirstName(userUpdateRequestDto.getFirstName());
-        user.setLastName(userUpdateRequestDto.getLastName());
-        user.setPassword(passwordEncoder.encode(userUpdateRequestDto.getPassword()));
-
-        long startSave = System.currentTimeMillis();
-        userRepository.save(user);
-        long durationSave = System.currentTimeMillis() - startSave;
-        statsDClient.recordExecutionTime("db.userRepository.save.time", durationSave);
-        logger.info("User with email {} updated successfully", email);
+        List<String> changed = new ArrayList<>(3);
+        String firstName = null;
+        if (!userUpdateRequestDto.getFirstName().equals(user.getFirstName())) {
+            firstName = userUpdateRequestDto.getFirstName();
+            changed.add("firstName");
+        }
+        String lastName = null;
+        if (!userUpdateRequestDto.getLastName().equals(user.getLastName())) {
+            lastName = userUpdateRequestDto.getLastName();
+            changed.add("lastName");
+        }
+
+        // A credential cached at authentication proves the password unchanged without hashing.
+        // Otherwise it is checked against the stored hash, so that resending the current password
+        // is neither rehashed nor written and counted as a change.
+        String passwordHash = null;
+        if (verifiedCredentialCache.matches(email, userUpdateRequestDto.getPassword())
+                || passwordEncoder.matches(userUpdateRequestDto.getPassword(), user.getPassword())) {
+            statsDClient.incrementCounter("auth.passwordHash.rehashSkipped_count");
+        } else {
+            passwordHash = passwordEncoder.encode(userUpdateRequestDto.getPassword());
+            changed.add("password");
+        }
+
+        if (changed.isEmpty()) {
+            statsDClient.incrementCounter("db.user.update.unchanged_count");
+            logger.info("User with email {} unchanged", email);
+            return;
+        }
+        // Only the changed columns are written, not the full row a dirty-checked entity would flush
+        userRepository.updateProfile(user, firstName, lastName, passwordHash);
+        for (String field : changed) {
+            statsDClient.incrementCounter("db.user.update." + field + "_count");
+        }
+
+        // The cached credential may hold the old password or names
+        verifiedCredentialCache.invalidate(email);
+        logger.info("User with email {} updated successfully: {}", email, changed);
     }
 
-    public ResponseEntity<ProfilePicResponseDto> uploadProfilePic(String userEmail, MultipartFile file) throws IOException {
-        long startFind = System.currentTimeMillis();
+    public CompletableFuture<ResponseEntity<ProfilePicResponseDto>> uploadProfilePic(String userEmail, MultipartFile file) throws IOException {
         User user = userRepository.findByEmail(userEmail);
-        long durationFind = System.currentTimeMillis() - startFind;
-        statsDClient.recordExecutionTime("db.userRepository.findByEmail.time", durationFind);
 
         if (user.getProfilePicUrl() != null) {
             logger.warn("User with email {} already has a profile picture", userEmail);
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).build());
         }
 
         logger.info("Uploading profile picture for user with email: {}", userEmail);
@@ -154,85 +213,72 @@ public class UserService {
         if (contentType == null ||
                 (!contentType.equals("image/png") && !contentType.equals("image/jpeg") && !contentType.equals("image/jpg"))) {
             logger.warn("Invalid file type: {}", contentType);
-            return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE).build();
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE).build());
         }
 
         String fileName = file.getOriginalFilename();
         String key = "profile-pictures/" + user.getId() + "/" + fileName;
         String uniqueId = UUID.randomUUID().toString();
 
-        long startS3Put = System.currentTimeMillis();
-        amazonS3.putObject(new PutObjectRequest(bucketName, key, file.getInputStream(), null));
-        long durationS3Put = System.currentTimeMillis() - startS3Put;
-        statsDClient.recordExecutionTime("aws.s3.putObject.time", durationS3Put);
-
-        user.setProfilePicUrl(key);
+        // The request thread is released here, the rest runs when S3 acknowledges the upload
+        return profilePicStorage.upload(key, file).thenApplyAsync(ignored -> {
+            user.setProfilePicUrl(key);
 
-        long startSave = System.currentTimeMillis();
-        userRepository.save(user);
-        long durationSave = System.currentTimeMillis() - startSave;
-        statsDClient.recordExecutionTime("db.userRepository.save.time", durationSave);
+            userRepository.save(user);
 
-        logger.info("Profile picture uploaded successfully for user: {}", userEmail);
+            // The cached principal still has the old profile picture key
+            verifiedCredentialCache.invalidate(userEmail);
+            profilePicUrlCache.invalidate(user.getId());
+            logger.info("Profile picture uploaded successfully for user: {}", userEmail);
 
-        ProfilePicResponseDto responseDto = new ProfilePicResponseDto(fileName, uniqueId, amazonS3.getUrl(bucketName, key).toString(), LocalDate.now(), user.getId().toString());
+            ProfilePicResponseDto responseDto = new ProfilePicResponseDto(fileName, uniqueId, profilePicUrlCache.getUrl(user.getId(), key), LocalDate.now(), user.getId().toString());
 
-        return ResponseEntity.status(HttpStatus.CREATED).body(responseDto);
+            return ResponseEntity.status(HttpStatus.CREATED).body(responseDto);
+        }, applicationTaskExecutor);
     }
 
-    public ResponseEntity<?> deleteProfilePic(String userEmail) {
-        long startFind = System.currentTimeMillis();
+    public CompletableFuture<ResponseEntity<?>> deleteProfilePic(String userEmail) {
         User user = userRepository.findByEmail(userEmail);
-        long durationFind = System.currentTimeMillis() - startFind;
-        statsDClient.recordExecutionTime("db.userRepository.findByEmail.time", durationFind);
 
+        // profile_pic_url is the source of truth, ProfilePicReconciler repairs drift from S3
         String key = user.getProfilePicUrl();
 
-        if (key == null || !amazonS3.doesObjectExist(bucketName, key)) {
+        if (key == null) {
             logger.warn("No profile picture found for user with email: {}", userEmail);
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
         }
 
         logger.info("Deleting profile picture for user with email: {}", userEmail);
 
-        long startS3Delete = System.currentTimeMillis();
-        amazonS3.deleteObject(new DeleteObjectRequest(bucketName, key));
-        long durationS3Delete = System.currentTimeMillis() - startS3Delete;
-        statsDClient.recordExecutionTime("aws.s3.deleteObject.time", durationS3Delete);
+        return profilePicStorage.delete(key).thenApplyAsync(ignored -> {
+            user.setProfilePicUrl(null);
 
-        user.setProfilePicUrl(null);
+            userRepository.save(user);
 
-        long startSave = System.currentTimeMillis();
-        userRepository.save(user);
-        long durationSave = System.currentTimeMillis() - startSave;
-        statsDClient.recordExecutionTime("db.userRepository.save.time", durationSave);
+            // The cached principal still has the old profile picture key
+            verifiedCredentialCache.invalidate(userEmail);
+            profilePicUrlCache.invalidate(user.getId());
+            logger.info("Profile picture deleted successfully for user: {}", userEmail);
 
-        logger.info("Profile picture deleted successfully for user: {}", userEmail);
-
-        return ResponseEntity.noContent().build();
+            return ResponseEntity.noContent().build();
+        }, applicationTaskExecutor);
     }
 
-    public ResponseEntity<?> getProfilePic(String userEmail) {
-        long startFind = System.currentTimeMillis();
-        User user = userRepository.findByEmail(userEmail);
-        long durationFind = System.currentTimeMillis() - startFind;
-        statsDClient.recordExecutionTime("db.userRepository.findByEmail.time", durationFind);
+    public ResponseEntity<?> getProfilePic(UserPrincipal principal) {
+        String userEmail = principal.getEmail();
+        // profile_pic_url is the source of truth, ProfilePicReconciler repairs drift from S3
+        String key = principal.getProfilePicUrl();
 
-        String key = user.getProfilePicUrl();
-
-        if (key == null || !amazonS3.doesObjectExist(bucketName, key)) {
+        if (key == null) {
             logger.warn("No profile picture found for user with email: {}", userEmail);
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
 
         logger.info("Profile picture found for user with email: {}", userEmail);
 
-        long startS3GetUrl = System.currentTimeMillis();
-        String url = amazonS3.getUrl(bucketName, key).toString();
-        long durationS3GetUrl = System.currentTimeMillis() - startS3GetUrl;
-        statsDClient.recordExecutionTime("aws.s3.getUrl.time", durationS3GetUrl);
-
-        ProfilePicResponseDto responseDto = new ProfilePicResponseDto(user.getProfilePicUrl(), user.getId().toString(), url, LocalDate.now(), user.getId().toString());
+        // Served from memory until the cached signature nears expiry
+        String url = profilePicUrlCache.getUrl(principal.getId(), key);
+        ProfilePicResponseDto responseDto = new ProfilePicResponseDto(key, principal.getId().toString(), url, LocalDate.now(), principal.getId().toString());
 
         return ResponseEntity.ok(responseDto);
     }
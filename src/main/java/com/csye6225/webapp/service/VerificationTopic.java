@@ -0,0 +1,11 @@
+package com.csye6225.webapp.service;
+
+import java.util.List;
+
+// Destination for user verification messages
+public interface VerificationTopic {
+
+    // Publishes up to 10 messages in one call and returns the indexes of the ones that were not
+    // accepted. Indexes rather than messages, since two events can carry the same payload
+    List<Integer> publishBatch(List<String> messages);
+}
@@ -0,0 +1,61 @@
+package com.csye6225.webapp.benchmark;
+
+import com.csye6225.webapp.security.EmailVerificationFilter;
+import com.csye6225.webapp.security.UserPrincipal;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+// Per-request cost of EmailVerificationFilter for a verified user (passes through) and an
+// unverified one (403), with the principal already in the security context as it is after
+// Basic auth.
+//
+// mvn -P benchmark verify -DskipTests -Djmh.include=EmailVerificationFilterBenchmark
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmailVerificationFilterBenchmark {
+
+    @Param({"true", "false"})
+    private boolean emailVerified;
+
+    private EmailVerificationFilter filter;
+
+    private FilterChain filterChain;
+
+    @Setup
+    public void setUp() {
+        filter = new EmailVerificationFilter();
+        filterChain = (request, response) -> { };
+        LocalDateTime now = LocalDateTime.now();
+        UserPrincipal principal = new UserPrincipal(1L, "jane.doe@example.com", "{bcrypt}hash", "Jane", "Doe", emailVerified,
+                null, now, now);
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(principal, null, Collections.emptyList()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public int doFilter() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/user/self");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, filterChain);
+        return response.getStatus();
+    }
+}
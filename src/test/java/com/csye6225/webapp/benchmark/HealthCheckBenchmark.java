@@ -0,0 +1,85 @@
+package com.csye6225.webapp.benchmark;
+
+import com.csye6225.webapp.controller.HealthCheckFilter;
+import com.csye6225.webapp.service.HealthMonitor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// One /healthz probe through the original controller logic (read the body through
+// getReader(), build HttpHeaders and a ResponseEntity) against HealthCheckFilter. Both get a
+// fresh mock request, as a container hands each probe a recycled one. The old path also ran
+// the Spring Security chain and DispatcherServlet, which is not measured here, so the gap is
+// a lower bound. Run with -prof gc for bytes allocated per probe.
+//
+// mvn -P benchmark verify -DskipTests -Djmh.include=HealthCheckBenchmark -Djmh.args="-prof gc"
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class HealthCheckBenchmark {
+
+    private HealthCheckFilter filter;
+
+    private FilterChain filterChain;
+
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setUp() {
+        // Never started, so it never probes; isReady is fixed rather than mocked to keep Mockito off the hot path
+        HealthMonitor healthMonitor = new HealthMonitor(Mockito.mock(DataSource.class), null, null, new SimpleMeterRegistry(),
+                5000, 2, 15000, 60, false, false, "benchmark-bucket", "") {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+        };
+        filter = new HealthCheckFilter(healthMonitor, new SimpleMeterRegistry());
+        filterChain = (request, response) -> {
+            throw new IllegalStateException("health probe should not reach the chain");
+        };
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public ResponseEntity<Void> legacyController() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/healthz");
+        HttpHeaders headers = new HttpHeaders();
+        headers.setCacheControl(CacheControl.noCache().mustRevalidate());
+        headers.setPragma("no-cache");
+        headers.add("X-Content-Type-Options", "nosniff");
+
+        boolean hasBody;
+        try (BufferedReader reader = request.getReader()) {
+            hasBody = reader.readLine() != null;
+        }
+        boolean hasQuery = request.getQueryString() != null && !request.getQueryString().isEmpty();
+        if (hasBody || hasQuery) {
+            return ResponseEntity.badRequest().headers(headers).build();
+        }
+        return ResponseEntity.ok().headers(headers).build();
+    }
+
+    @Benchmark
+    public int filter() throws ServletException, IOException {
+        response.reset();
+        filter.doFilter(new MockHttpServletRequest("GET", "/healthz"), response, filterChain);
+        return response.getStatus();
+    }
+}
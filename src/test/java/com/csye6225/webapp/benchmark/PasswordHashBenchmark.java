@@ -0,0 +1,50 @@
+package com.csye6225.webapp.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+// Cost of hashing (signup, password change) and verifying (cache-miss login) one password per
+// scheme and work factor. Use it to pick auth.password-hashing.algorithm / bcrypt-strength /
+// pbkdf2-iterations.
+//
+// mvn -P benchmark verify -DskipTests -Djmh.include=PasswordHashBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class PasswordHashBenchmark {
+
+    // <algorithm>:<bcrypt strength or pbkdf2 iterations>
+    @Param({"bcrypt:10", "bcrypt:11", "bcrypt:12", "pbkdf2:100000", "pbkdf2:310000", "pbkdf2:600000"})
+    private String scheme;
+
+    private PasswordEncoder passwordEncoder;
+
+    private String encodedPassword;
+
+    @Setup
+    public void setUp() {
+        String[] parts = scheme.split(":");
+        int cost = Integer.parseInt(parts[1]);
+        passwordEncoder = "bcrypt".equals(parts[0])
+                ? new BCryptPasswordEncoder(cost)
+                : new Pbkdf2PasswordEncoder("", 16, cost, Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256);
+        encodedPassword = passwordEncoder.encode("correct horse battery staple");
+    }
+
+    @Benchmark
+    public String encode() {
+        return passwordEncoder.encode("correct horse battery staple");
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return passwordEncoder.matches("correct horse battery staple", encodedPassword);
+    }
+}
@@ -0,0 +1,103 @@
+package com.csye6225.webapp.benchmark;
+
+import com.amazonaws.auth.AWSStaticCredentialsProvider;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.client.builder.AwsClientBuilder;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.csye6225.webapp.service.ProfilePicStorage;
+import com.csye6225.webapp.stub.InMemoryS3Server;
+import com.timgroup.statsd.NoOpStatsDClient;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Compares the original upload path (v1 blocking client, putObject with null metadata, which
+// makes the SDK buffer the stream to learn its length) against ProfilePicStorage on the async
+// v2 client, using an in-memory S3 stub. Run with -prof gc to compare bytes allocated per
+// upload; SampleTime mode reports p99 and Throughput mode uploads per second.
+//
+// mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+//     -Dexec.args="-cp %classpath org.openjdk.jmh.Main ProfilePicUploadBenchmark -prof gc"
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.SampleTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(4)
+public class ProfilePicUploadBenchmark {
+
+    private static final String BUCKET = "benchmark-bucket";
+
+    // Below and above the default 8MB multipart threshold
+    @Param({"524288", "9437184"})
+    private int fileSize;
+
+    private InMemoryS3Server s3Server;
+
+    private AmazonS3 amazonS3;
+
+    private SdkAsyncHttpClient sdkAsyncHttpClient;
+
+    private S3AsyncClient s3AsyncClient;
+
+    private ProfilePicStorage profilePicStorage;
+
+    private MockMultipartFile file;
+
+    @Setup
+    public void setUp() throws IOException {
+        s3Server = InMemoryS3Server.start();
+        amazonS3 = AmazonS3ClientBuilder.standard()
+                .withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(s3Server.getEndpoint().toString(), "us-east-1"))
+                .withPathStyleAccessEnabled(true)
+                .withCredentials(new AWSStaticCredentialsProvider(new BasicAWSCredentials("benchmark", "benchmark")))
+                .build();
+        sdkAsyncHttpClient = NettyNioAsyncHttpClient.builder().maxConcurrency(64).build();
+        s3AsyncClient = S3AsyncClient.builder()
+                .region(Region.US_EAST_1)
+                .endpointOverride(s3Server.getEndpoint())
+                .forcePathStyle(true)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("benchmark", "benchmark")))
+                .httpClient(sdkAsyncHttpClient)
+                .build();
+        profilePicStorage = new ProfilePicStorage(s3AsyncClient, new NoOpStatsDClient(), BUCKET,
+                DataSize.ofMegabytes(8), DataSize.ofMegabytes(5), 4, 16, Duration.ofSeconds(2), false);
+
+        byte[] content = new byte[fileSize];
+        ThreadLocalRandom.current().nextBytes(content);
+        file = new MockMultipartFile("profilePic", "picture.png", "image/png", content);
+    }
+
+    @TearDown
+    public void tearDown() {
+        profilePicStorage.shutdown();
+        s3AsyncClient.close();
+        sdkAsyncHttpClient.close();
+        amazonS3.shutdown();
+        s3Server.close();
+    }
+
+    @Benchmark
+    public void legacyPutObject() throws IOException {
+        amazonS3.putObject(new PutObjectRequest(BUCKET, "profile-pictures/legacy/picture.png", file.getInputStream(), null));
+    }
+
+    @Benchmark
+    public void asyncUpload() throws IOException {
+        profilePicStorage.upload("profile-pictures/async/picture.png", file).join();
+    }
+}
@@ -0,0 +1,81 @@
+package com.csye6225.webapp.benchmark;
+
+import com.csye6225.webapp.security.RateLimiter;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Contention on the rate limiter: many threads taking tokens from one hot key (every call
+// lands on the same bucket) or spread over 1024 keys. RateLimiter's compare-and-set bucket is
+// compared with a bucket guarded by synchronized in a ConcurrentHashMap. Limits are set high
+// enough that every call is admitted, so each one writes to its bucket.
+//
+// mvn -P benchmark verify -DskipTests -Djmh.include=RateLimiterBenchmark [-Djmh.args="-t 16"]
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class RateLimiterBenchmark {
+
+    private static final int CAPACITY = Integer.MAX_VALUE / 2;
+
+    private static final double REFILL_PER_SECOND = 1e9;
+
+    @Param({"1", "1024"})
+    private int keyCount;
+
+    private String[] keys;
+
+    private RateLimiter rateLimiter;
+
+    private ConcurrentHashMap<String, SynchronizedBucket> synchronizedBuckets;
+
+    @Setup
+    public void setUp() {
+        keys = new String[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = "10.0." + (i / 256) + "." + (i % 256);
+        }
+        rateLimiter = new RateLimiter(CAPACITY, REFILL_PER_SECOND, 100_000, Duration.ofMinutes(10));
+        synchronizedBuckets = new ConcurrentHashMap<>();
+    }
+
+    @Benchmark
+    public long casBucket() {
+        return rateLimiter.tryAcquire(nextKey());
+    }
+
+    @Benchmark
+    public long synchronizedBucket() {
+        return synchronizedBuckets.computeIfAbsent(nextKey(), key -> new SynchronizedBucket()).tryAcquire();
+    }
+
+    private String nextKey() {
+        return keyCount == 1 ? keys[0] : keys[ThreadLocalRandom.current().nextInt(keyCount)];
+    }
+
+    // The textbook token bucket: refill from elapsed time, then take a token, under a lock
+    private static final class SynchronizedBucket {
+
+        private double tokens = CAPACITY;
+
+        private long refilledAt = System.nanoTime();
+
+        synchronized long tryAcquire() {
+            long now = System.nanoTime();
+            tokens = Math.min(CAPACITY, tokens + (now - refilledAt) * REFILL_PER_SECOND / 1e9);
+            refilledAt = now;
+            if (tokens < 1) {
+                return (long) ((1 - tokens) * 1e9 / REFILL_PER_SECOND);
+            }
+            tokens--;
+            return 0;
+        }
+    }
+}
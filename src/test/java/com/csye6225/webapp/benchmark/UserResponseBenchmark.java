@@ -0,0 +1,99 @@
+package com.csye6225.webapp.benchmark;
+
+import com.csye6225.webapp.dto.UserRequestDto;
+import com.csye6225.webapp.dto.UserResponseDto;
+import com.csye6225.webapp.security.UserPrincipal;
+import com.csye6225.webapp.service.UserService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// CPU-only work on the user endpoints: building the response DTO from the authenticated
+// principal, serializing it with Jackson, and validating a signup body.
+//
+// mvn -P benchmark verify -DskipTests -Djmh.include=UserResponseBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserResponseBenchmark {
+
+    private UserService userService;
+
+    private UserPrincipal principal;
+
+    private UserResponseDto userResponseDto;
+
+    private ObjectMapper objectMapper;
+
+    private ValidatorFactory validatorFactory;
+
+    private Validator validator;
+
+    private UserRequestDto validRequest;
+
+    private UserRequestDto invalidRequest;
+
+    @Setup
+    public void setUp() {
+        // getUser only reads the principal, so no collaborators are needed
+        userService = new UserService();
+        LocalDateTime now = LocalDateTime.now();
+        principal = new UserPrincipal(1L, "jane.doe@example.com", "{bcrypt}hash", "Jane", "Doe", true, null, now, now);
+        userResponseDto = userService.getUser(principal);
+        objectMapper = new ObjectMapper();
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        validRequest = userRequest("jane.doe@example.com", "Jane", "Doe", "password123");
+        invalidRequest = userRequest("not-an-email", "J", "", "short");
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public UserResponseDto mapPrincipal() {
+        return userService.getUser(principal);
+    }
+
+    @Benchmark
+    public byte[] serializeResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(userResponseDto);
+    }
+
+    @Benchmark
+    public byte[] mapAndSerialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(userService.getUser(principal));
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserRequestDto>> validateValidRequest() {
+        return validator.validate(validRequest);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserRequestDto>> validateInvalidRequest() {
+        return validator.validate(invalidRequest);
+    }
+
+    private static UserRequestDto userRequest(String email, String firstName, String lastName, String password) {
+        UserRequestDto userRequestDto = new UserRequestDto();
+        userRequestDto.setEmail(email);
+        userRequestDto.setFirstName(firstName);
+        userRequestDto.setLastName(lastName);
+        userRequestDto.setPassword(password);
+        return userRequestDto;
+    }
+}
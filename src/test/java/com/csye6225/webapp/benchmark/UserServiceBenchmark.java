@@ -0,0 +1,74 @@
+package com.csye6225.webapp.benchmark;
+
+import com.csye6225.webapp.WebappApplication;
+import com.csye6225.webapp.dto.UserRequestDto;
+import com.csye6225.webapp.dto.UserResponseDto;
+import com.csye6225.webapp.service.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// createUser and getUserByEmail through the full service, repository and Hibernate stack on the
+// embedded H2 database of the test profile. BCrypt runs at cost 4 here so the numbers show the
+// persistence path rather than the hash (PasswordHashBenchmark covers that).
+//
+// mvn -P benchmark verify -DskipTests -Djmh.include=UserServiceBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class UserServiceBenchmark {
+
+    private static final int EXISTING_USERS = 1000;
+
+    private final AtomicLong emails = new AtomicLong();
+
+    private final AtomicLong lookups = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+
+    private UserService userService;
+
+    @Setup
+    public void setUp() {
+        // Passed as arguments so they override application.properties
+        context = new SpringApplicationBuilder(WebappApplication.class)
+                .profiles("test")
+                .run("--server.port=0", "--auth.password-hashing.bcrypt-strength=4", "--logging.level.com.csye6225=WARN",
+                        "--logging.level.io.micrometer=ERROR", "--logging.level.reactor=ERROR");
+        userService = context.getBean(UserService.class);
+        for (int i = 0; i < EXISTING_USERS; i++) {
+            userService.createUser(userRequest());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public UserResponseDto createUser() {
+        return userService.createUser(userRequest());
+    }
+
+    @Benchmark
+    public UserResponseDto getUserByEmail() {
+        long id = Math.floorMod(lookups.incrementAndGet(), EXISTING_USERS);
+        return userService.getUserByEmail("user" + id + "@example.com");
+    }
+
+    private UserRequestDto userRequest() {
+        UserRequestDto userRequestDto = new UserRequestDto();
+        userRequestDto.setEmail("user" + emails.getAndIncrement() + "@example.com");
+        userRequestDto.setFirstName("Jane");
+        userRequestDto.setLastName("Doe");
+        userRequestDto.setPassword("password123");
+        return userRequestDto;
+    }
+}
@@ -0,0 +1,35 @@
+package com.csye6225.webapp.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DataSourceConfigTest {
+
+    @Test
+    void testPoolSize_fromCores() {
+        assertEquals(9, DataSourceConfig.poolSize(4, 1, 0, 0));
+    }
+
+    @Test
+    void testPoolSize_boundedByExpectedConcurrency() {
+        assertEquals(5, DataSourceConfig.poolSize(8, 1, 5, 0));
+        assertEquals(2, DataSourceConfig.poolSize(1, 0, 1, 0));
+    }
+
+    @Test
+    void testPoolSize_smallInstanceKeepsPreviousDefault() {
+        assertEquals(10, DataSourceConfig.poolSize(1, 1, 0, 10));
+        assertEquals(17, DataSourceConfig.poolSize(8, 1, 0, 10));
+        // An explicit expected concurrency is the operator opting in to a smaller pool
+        assertEquals(5, DataSourceConfig.poolSize(1, 1, 5, 10));
+    }
+
+    @Test
+    void testStatementCacheOnlyForPostgres() {
+        assertTrue(DataSourceConfig.isPostgres("jdbc:postgresql://localhost:5432/webapp"));
+        assertFalse(DataSourceConfig.isPostgres("jdbc:h2:mem:webapp"));
+    }
+}
@@ -0,0 +1,73 @@
+package com.csye6225.webapp.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.when;
+
+class SentEmailIndexInitializerTest {
+
+    private Connection connection;
+
+    private Statement statement;
+
+    private SentEmailIndexInitializer initializer;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = Mockito.mock(Connection.class);
+        statement = Mockito.mock(Statement.class);
+        when(connection.createStatement()).thenReturn(statement);
+        initializer = new SentEmailIndexInitializer(Mockito.mock(JdbcTemplate.class), "jdbc:postgresql://localhost:5432/webapp");
+    }
+
+    @Test
+    void testInvalidIndexDroppedAndRebuilt() throws SQLException {
+        stubQuery(SentEmailIndexInitializer.LOCK_SQL, true);
+        stubQuery(SentEmailIndexInitializer.VALIDITY_SQL, false);
+
+        initializer.createTokenIndex(connection);
+
+        InOrder inOrder = Mockito.inOrder(statement);
+        inOrder.verify(statement).execute("DROP INDEX CONCURRENTLY IF EXISTS idx_sent_emails_token_md5");
+        inOrder.verify(statement).execute(SentEmailIndexInitializer.TOKEN_INDEX_DDL);
+        inOrder.verify(statement).execute(SentEmailIndexInitializer.UNLOCK_SQL);
+    }
+
+    @Test
+    void testValidIndexLeftAlone() throws SQLException {
+        stubQuery(SentEmailIndexInitializer.LOCK_SQL, true);
+        stubQuery(SentEmailIndexInitializer.VALIDITY_SQL, true);
+
+        initializer.createTokenIndex(connection);
+
+        Mockito.verify(statement, never()).execute(SentEmailIndexInitializer.TOKEN_INDEX_DDL);
+        Mockito.verify(statement).execute(SentEmailIndexInitializer.UNLOCK_SQL);
+    }
+
+    @Test
+    void testSkippedWhileAnotherInstanceHoldsTheLock() throws SQLException {
+        stubQuery(SentEmailIndexInitializer.LOCK_SQL, false);
+
+        initializer.createTokenIndex(connection);
+
+        Mockito.verify(statement, never()).execute(anyString());
+    }
+
+    private void stubQuery(String sql, boolean value) throws SQLException {
+        ResultSet resultSet = Mockito.mock(ResultSet.class);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getBoolean(1)).thenReturn(value);
+        when(statement.executeQuery(sql)).thenReturn(resultSet);
+    }
+}
@@ -0,0 +1,98 @@
+package com.csye6225.webapp.controller;
+
+import com.csye6225.webapp.service.HealthMonitor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+class HealthCheckFilterTest {
+
+    private HealthMonitor healthMonitor;
+
+    private FilterChain filterChain;
+
+    private HealthCheckFilter healthCheckFilter;
+
+    @BeforeEach
+    void setUp() {
+        healthMonitor = Mockito.mock(HealthMonitor.class);
+        filterChain = Mockito.mock(FilterChain.class);
+        healthCheckFilter = new HealthCheckFilter(healthMonitor, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void testHealthz_readyAndNotReady() throws ServletException, IOException {
+        when(healthMonitor.isReady()).thenReturn(true);
+        MockHttpServletResponse response = filter(new MockHttpServletRequest("GET", "/healthz"));
+        assertEquals(200, response.getStatus());
+        assertEquals("no-cache, must-revalidate", response.getHeader("Cache-Control"));
+        assertEquals("no-cache", response.getHeader("Pragma"));
+        assertEquals("nosniff", response.getHeader("X-Content-Type-Options"));
+
+        when(healthMonitor.isReady()).thenReturn(false);
+        assertEquals(503, filter(new MockHttpServletRequest("GET", "/healthz")).getStatus());
+        Mockito.verifyNoInteractions(filterChain);
+    }
+
+    @Test
+    void testHealthz_rejectsBodyQueryAndOtherMethods() throws ServletException, IOException {
+        when(healthMonitor.isReady()).thenReturn(true);
+
+        MockHttpServletRequest withBody = new MockHttpServletRequest("GET", "/healthz");
+        withBody.setContent("{}".getBytes());
+        assertEquals(400, filter(withBody).getStatus());
+
+        MockHttpServletRequest chunked = new MockHttpServletRequest("GET", "/healthz");
+        chunked.addHeader("Transfer-Encoding", "chunked");
+        assertEquals(400, filter(chunked).getStatus());
+
+        MockHttpServletRequest withQuery = new MockHttpServletRequest("GET", "/healthz");
+        withQuery.setQueryString("a=b");
+        assertEquals(400, filter(withQuery).getStatus());
+
+        assertEquals(405, filter(new MockHttpServletRequest("POST", "/healthz")).getStatus());
+    }
+
+    @Test
+    void testHealthz_emptyQueryStringAccepted() throws ServletException, IOException {
+        when(healthMonitor.isReady()).thenReturn(true);
+
+        MockHttpServletRequest emptyQuery = new MockHttpServletRequest("GET", "/healthz");
+        emptyQuery.setQueryString("");
+        assertEquals(200, filter(emptyQuery).getStatus());
+    }
+
+    @Test
+    void testLiveness_ignoresReadiness() throws ServletException, IOException {
+        when(healthMonitor.isReady()).thenReturn(false);
+        when(healthMonitor.isLive()).thenReturn(true);
+
+        assertEquals(200, filter(new MockHttpServletRequest("GET", "/healthz/live")).getStatus());
+    }
+
+    @Test
+    void testOtherPaths_passThrough() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/healthz/probes");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        healthCheckFilter.doFilter(request, response, filterChain);
+
+        Mockito.verify(filterChain).doFilter(request, response);
+    }
+
+    private MockHttpServletResponse filter(MockHttpServletRequest request) throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        healthCheckFilter.doFilter(request, response, filterChain);
+        return response;
+    }
+}
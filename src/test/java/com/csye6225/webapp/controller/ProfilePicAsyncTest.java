@@ -0,0 +1,152 @@
+package com.csye6225.webapp.controller;
+
+import com.csye6225.webapp.model.User;
+import com.csye6225.webapp.repository.UserRepository;
+import com.csye6225.webapp.security.SessionTokenService;
+import com.csye6225.webapp.security.UserPrincipal;
+import com.csye6225.webapp.stub.InMemoryS3Server;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Profile picture upload and delete return a CompletableFuture, so the response is written on an
+// ASYNC dispatch that runs the security filter chain again
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ProfilePicAsyncTest {
+
+    private static final String BUCKET = "test-bucket";
+
+    private static final InMemoryS3Server s3Server;
+
+    static {
+        // The SDK still signs requests, the stand-in ignores the signature
+        System.setProperty("aws.accessKeyId", System.getProperty("aws.accessKeyId", "test"));
+        System.setProperty("aws.secretAccessKey", System.getProperty("aws.secretAccessKey", "test"));
+        try {
+            s3Server = InMemoryS3Server.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void s3Endpoint(DynamicPropertyRegistry registry) {
+        registry.add("aws.s3.endpoint", () -> s3Server.getEndpoint().toString());
+    }
+
+    @AfterAll
+    static void stopS3() {
+        s3Server.close();
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private SessionTokenService sessionTokenService;
+
+    @Autowired
+    private HikariDataSource dataSource;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+        s3Server.clear();
+        // Other test contexts recreate the schema, so ids can repeat across the JVM-wide cache
+        entityManagerFactory.getCache().evictAll();
+        user = new User();
+        user.setEmail("john@example.com");
+        user.setFirstName("John");
+        user.setLastName("Doe");
+        user.setPassword(passwordEncoder.encode("password"));
+        user.setEmailVerified(true);
+        user = userRepository.save(user);
+    }
+
+    @Test
+    void testUploadAndDelete_sessionToken() throws Exception {
+        String bearer = "Bearer " + sessionTokenService.issue(UserPrincipal.from(user));
+        String key = "profile-pictures/" + user.getId() + "/picture.png";
+
+        MvcResult upload = mockMvc.perform(multipart("/v1/user/self/pic").file(picture()).header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(upload)).andExpect(status().isCreated());
+        assertTrue(s3Server.containsObject(BUCKET, key));
+        assertEquals(key, userRepository.findByEmail("john@example.com").getProfilePicUrl());
+
+        MvcResult delete = mockMvc.perform(delete("/v1/user/self/pic").header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(delete)).andExpect(status().isNoContent());
+        assertFalse(s3Server.containsObject(BUCKET, key));
+        assertNull(userRepository.findByEmail("john@example.com").getProfilePicUrl());
+    }
+
+    @Test
+    void testUploadAndDelete_noConnectionHeldDuringS3Call() throws Exception {
+        String basic = "Basic " + Base64.getEncoder().encodeToString("john@example.com:password".getBytes(StandardCharsets.UTF_8));
+
+        MvcResult upload = mockMvc.perform(multipart("/v1/user/self/pic").file(picture()).header(HttpHeaders.AUTHORIZATION, basic))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // Waits for the S3 call and the write after it; no request-scoped EntityManager keeps a
+        // connection checked out until the async dispatch
+        upload.getAsyncResult();
+        assertEquals(0, dataSource.getHikariPoolMXBean().getActiveConnections());
+        mockMvc.perform(asyncDispatch(upload)).andExpect(status().isCreated());
+
+        MvcResult delete = mockMvc.perform(delete("/v1/user/self/pic").header(HttpHeaders.AUTHORIZATION, basic))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        delete.getAsyncResult();
+        assertEquals(0, dataSource.getHikariPoolMXBean().getActiveConnections());
+        mockMvc.perform(asyncDispatch(delete)).andExpect(status().isNoContent());
+        assertNull(userRepository.findByEmail("john@example.com").getProfilePicUrl());
+    }
+
+    private MockMultipartFile picture() {
+        return new MockMultipartFile("profilePic", "picture.png", "image/png", new byte[]{1, 2, 3});
+    }
+}
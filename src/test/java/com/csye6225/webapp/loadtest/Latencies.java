@@ -0,0 +1,70 @@
+package com.csye6225.webapp.loadtest;
+
+import java.util.Arrays;
+
+// Latency samples and error counts collected by one load-test worker, merged after the run
+final class Latencies {
+
+    private long[] values = new long[1024];
+
+    private int size;
+
+    private boolean sorted;
+
+    private long clientErrors;
+
+    private long errors;
+
+    void add(long nanos) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = nanos;
+        sorted = false;
+    }
+
+    // 4xx responses
+    void recordClientError() {
+        clientErrors++;
+    }
+
+    // 5xx responses and requests that failed without a response
+    void recordError() {
+        errors++;
+    }
+
+    void merge(Latencies other) {
+        if (size + other.size > values.length) {
+            values = Arrays.copyOf(values, Math.max(values.length * 2, size + other.size));
+        }
+        System.arraycopy(other.values, 0, values, size, other.size);
+        size += other.size;
+        sorted = false;
+        clientErrors += other.clientErrors;
+        errors += other.errors;
+    }
+
+    int count() {
+        return size;
+    }
+
+    long clientErrors() {
+        return clientErrors;
+    }
+
+    long errors() {
+        return errors;
+    }
+
+    double percentileMillis(double percentile) {
+        if (size == 0) {
+            return 0;
+        }
+        if (!sorted) {
+            Arrays.sort(values, 0, size);
+            sorted = true;
+        }
+        int index = (int) Math.min(size - 1, Math.ceil(percentile * size) - 1);
+        return values[Math.max(0, index)] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,242 @@
+package com.csye6225.webapp.loadtest;
+
+import com.csye6225.webapp.model.User;
+import com.csye6225.webapp.repository.UserRepository;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Closed-loop load against the whole app running offline (LocalWebapp: H2, in-memory S3 and
+// SNS), with a mix of every public endpoint. Each worker loops: pick an endpoint by weight,
+// pick a seeded, verified user, send, record. Prints throughput, latency percentiles and error
+// counts per endpoint so every performance change can be compared against the same baseline.
+//
+// -Dconcurrency (default 50), -DwarmupSeconds (10), -DdurationSeconds (60), -Dusers (200),
+// -DpictureKb (100). Program arguments are passed to the app, e.g.
+// --spring.threads.virtual.enabled=true or --spring.datasource.url=jdbc:postgresql://...
+//
+// mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+//     -Dexec.args="-DdurationSeconds=60 -cp %classpath com.csye6225.webapp.loadtest.LoadGenerator"
+public class LoadGenerator {
+
+    private static final String PASSWORD = "password";
+
+    private static final String BOUNDARY = "load-generator-boundary";
+
+    private static final AtomicLong signups = new AtomicLong();
+
+    enum Endpoint {
+        SIGNUP("POST /v1/user", 5),
+        GET_SELF("GET /v1/user/self", 40),
+        PUT_SELF("PUT /v1/user/self", 10),
+        UPLOAD_PIC("POST /v1/user/self/pic", 5),
+        GET_PIC("GET /v1/user/self/pic", 15),
+        DELETE_PIC("DELETE /v1/user/self/pic", 5),
+        HEALTHZ("GET /healthz", 20);
+
+        private final String label;
+
+        private final int weight;
+
+        Endpoint(String label, int weight) {
+            this.label = label;
+            this.weight = weight;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = Integer.getInteger("concurrency", 50);
+        Duration warmup = Duration.ofSeconds(Long.getLong("warmupSeconds", 10));
+        Duration duration = Duration.ofSeconds(Long.getLong("durationSeconds", 60));
+        int users = Integer.getInteger("users", 200);
+        byte[] picture = new byte[Integer.getInteger("pictureKb", 100) * 1024];
+        ThreadLocalRandom.current().nextBytes(picture);
+
+        String[] appArgs = Arrays.copyOf(args, args.length + 1);
+        appArgs[args.length] = "--server.port=0";
+        Map<Endpoint, Latencies> results;
+        int published;
+        try (LocalWebapp webapp = LocalWebapp.start(appArgs)) {
+            List<String> emails = seedUsers(webapp, users);
+            URI baseUri = webapp.getBaseUri();
+            try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                HttpClient httpClient = HttpClient.newBuilder()
+                        .executor(clients)
+                        .connectTimeout(Duration.ofSeconds(5))
+                        .build();
+                LoadGenerator generator = new LoadGenerator(httpClient, baseUri, emails, picture);
+                generator.drive(clients, concurrency, warmup);
+                results = generator.drive(clients, concurrency, duration);
+            }
+            published = webapp.getSnsServer().getMessageCount();
+        }
+
+        print(results, concurrency, users, duration, published);
+        System.exit(0);
+    }
+
+    private final HttpClient httpClient;
+
+    private final URI baseUri;
+
+    private final List<String> emails;
+
+    private final byte[] picture;
+
+    private LoadGenerator(HttpClient httpClient, URI baseUri, List<String> emails, byte[] picture) {
+        this.httpClient = httpClient;
+        this.baseUri = baseUri;
+        this.emails = emails;
+        this.picture = picture;
+    }
+
+    private static List<String> seedUsers(LocalWebapp webapp, int count) {
+        UserRepository userRepository = webapp.getContext().getBean(UserRepository.class);
+        // Every seeded user shares one hash, BCrypt at the configured cost would dominate setup
+        String password = webapp.getContext().getBean(PasswordEncoder.class).encode(PASSWORD);
+        List<User> seeded = new ArrayList<>(count);
+        List<String> emails = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            User user = new User();
+            user.setEmail("load" + i + "@example.com");
+            user.setFirstName("Load");
+            user.setLastName("Test");
+            user.setPassword(password);
+            user.setEmailVerified(true);
+            seeded.add(user);
+            emails.add(user.getEmail());
+        }
+        userRepository.saveAll(seeded);
+        return emails;
+    }
+
+    private Map<Endpoint, Latencies> drive(ExecutorService clients, int concurrency, Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Future<Map<Endpoint, Latencies>>> workers = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            workers.add(clients.submit(() -> {
+                Map<Endpoint, Latencies> latencies = newResults();
+                while (System.nanoTime() < deadline) {
+                    Endpoint endpoint = nextEndpoint();
+                    HttpRequest request = request(endpoint, emails.get(ThreadLocalRandom.current().nextInt(emails.size())));
+                    Latencies endpointLatencies = latencies.get(endpoint);
+                    long start = System.nanoTime();
+                    try {
+                        int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        if (status >= 500) {
+                            endpointLatencies.recordError();
+                        } else if (status >= 400) {
+                            endpointLatencies.recordClientError();
+                        }
+                    } catch (Exception e) {
+                        endpointLatencies.recordError();
+                    }
+                    endpointLatencies.add(System.nanoTime() - start);
+                }
+                return latencies;
+            }));
+        }
+        Map<Endpoint, Latencies> results = newResults();
+        for (Future<Map<Endpoint, Latencies>> worker : workers) {
+            worker.get().forEach((endpoint, latencies) -> results.get(endpoint).merge(latencies));
+        }
+        return results;
+    }
+
+    private static Endpoint nextEndpoint() {
+        int roll = ThreadLocalRandom.current().nextInt(100);
+        for (Endpoint endpoint : Endpoint.values()) {
+            roll -= endpoint.weight;
+            if (roll < 0) {
+                return endpoint;
+            }
+        }
+        return Endpoint.HEALTHZ;
+    }
+
+    private HttpRequest request(Endpoint endpoint, String email) {
+        return switch (endpoint) {
+            case SIGNUP -> HttpRequest.newBuilder(baseUri.resolve("/v1/user"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(userJson("signup" + signups.incrementAndGet() + "@example.com")))
+                    .build();
+            case GET_SELF -> authorized("/v1/user/self", email).GET().build();
+            // Same password, so the user's credentials stay valid for the other workers
+            case PUT_SELF -> authorized("/v1/user/self", email)
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString(userJson(email)))
+                    .build();
+            case UPLOAD_PIC -> authorized("/v1/user/self/pic", email)
+                    .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(multipartBody()))
+                    .build();
+            case GET_PIC -> authorized("/v1/user/self/pic", email).GET().build();
+            case DELETE_PIC -> authorized("/v1/user/self/pic", email).DELETE().build();
+            case HEALTHZ -> HttpRequest.newBuilder(baseUri.resolve("/healthz")).GET().build();
+        };
+    }
+
+    private HttpRequest.Builder authorized(String path, String email) {
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+                .header("Authorization", "Basic " + Base64.getEncoder()
+                        .encodeToString((email + ":" + PASSWORD).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String userJson(String email) {
+        return "{\"email\":\"" + email + "\",\"firstName\":\"Load\",\"lastName\":\"Test\",\"password\":\"" + PASSWORD + "\"}";
+    }
+
+    private byte[] multipartBody() {
+        byte[] head = ("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"profilePic\"; filename=\"picture.png\"\r\n"
+                + "Content-Type: image/png\r\n\r\n").getBytes(StandardCharsets.UTF_8);
+        byte[] tail = ("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8);
+        byte[] body = Arrays.copyOf(head, head.length + picture.length + tail.length);
+        System.arraycopy(picture, 0, body, head.length, picture.length);
+        System.arraycopy(tail, 0, body, head.length + picture.length, tail.length);
+        return body;
+    }
+
+    private static Map<Endpoint, Latencies> newResults() {
+        Map<Endpoint, Latencies> results = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : Endpoint.values()) {
+            results.put(endpoint, new Latencies());
+        }
+        return results;
+    }
+
+    private static void print(Map<Endpoint, Latencies> results, int concurrency, int users, Duration duration, int published) {
+        Latencies total = new Latencies();
+        results.values().forEach(total::merge);
+
+        System.out.printf("%nconcurrency=%d, users=%d, %ds measured, %d SNS messages published%n",
+                concurrency, users, duration.toSeconds(), published);
+        System.out.printf("%-26s %9s %9s %9s %9s %9s %9s %7s %7s %7s%n",
+                "endpoint", "requests", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms", "4xx", "5xx/io", "err %");
+        results.forEach((endpoint, latencies) -> printRow(endpoint.label, latencies, duration));
+        printRow("total", total, duration);
+    }
+
+    private static void printRow(String label, Latencies latencies, Duration duration) {
+        System.out.printf("%-26s %9d %9.1f %9.2f %9.2f %9.2f %9.2f %7d %7d %7.2f%n", label, latencies.count(),
+                latencies.count() / (double) duration.toSeconds(), latencies.percentileMillis(0.50),
+                latencies.percentileMillis(0.95), latencies.percentileMillis(0.99), latencies.percentileMillis(1.0),
+                latencies.clientErrors(), latencies.errors(),
+                latencies.count() == 0 ? 0 : 100.0 * latencies.errors() / latencies.count());
+    }
+}
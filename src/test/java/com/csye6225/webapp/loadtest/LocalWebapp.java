@@ -0,0 +1,77 @@
+package com.csye6225.webapp.loadtest;
+
+import com.csye6225.webapp.WebappApplication;
+import com.csye6225.webapp.stub.InMemoryS3Server;
+import com.csye6225.webapp.stub.InMemorySnsServer;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+
+// Runs the app fully offline on the "local" profile: H2 instead of Postgres, and the in-memory
+// S3 and SNS stand-ins in place of AWS, reached through aws.s3.endpoint and aws.sns.endpoint.
+// Extra Spring arguments (--server.port=..., --spring.threads.virtual.enabled=true, ...) are
+// passed through.
+//
+// mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+//     -Dexec.args="-cp %classpath com.csye6225.webapp.loadtest.LocalWebapp --server.port=8080"
+public final class LocalWebapp implements AutoCloseable {
+
+    private final InMemoryS3Server s3Server;
+
+    private final InMemorySnsServer snsServer;
+
+    private final ConfigurableApplicationContext context;
+
+    private LocalWebapp(InMemoryS3Server s3Server, InMemorySnsServer snsServer, ConfigurableApplicationContext context) {
+        this.s3Server = s3Server;
+        this.snsServer = snsServer;
+        this.context = context;
+    }
+
+    public static LocalWebapp start(String... args) throws IOException {
+        // The SDK still signs requests, the stand-ins ignore the signature
+        System.setProperty("aws.accessKeyId", System.getProperty("aws.accessKeyId", "local"));
+        System.setProperty("aws.secretAccessKey", System.getProperty("aws.secretAccessKey", "local"));
+
+        InMemoryS3Server s3Server = InMemoryS3Server.start();
+        InMemorySnsServer snsServer = InMemorySnsServer.start();
+        String[] arguments = new String[args.length + 2];
+        arguments[0] = "--aws.s3.endpoint=" + s3Server.getEndpoint();
+        arguments[1] = "--aws.sns.endpoint=" + snsServer.getEndpoint();
+        System.arraycopy(args, 0, arguments, 2, args.length);
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(WebappApplication.class)
+                .profiles("local")
+                .run(arguments);
+        return new LocalWebapp(s3Server, snsServer, context);
+    }
+
+    public static void main(String[] args) throws Exception {
+        LocalWebapp webapp = start(args);
+        Runtime.getRuntime().addShutdownHook(new Thread(webapp::close));
+        System.out.println("webapp running at " + webapp.getBaseUri() + " (S3 " + webapp.s3Server.getEndpoint()
+                + ", SNS " + webapp.snsServer.getEndpoint() + ")");
+        Thread.currentThread().join();
+    }
+
+    public URI getBaseUri() {
+        return URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port"));
+    }
+
+    public ConfigurableApplicationContext getContext() {
+        return context;
+    }
+
+    public InMemorySnsServer getSnsServer() {
+        return snsServer;
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        snsServer.close();
+        s3Server.close();
+    }
+}
@@ -0,0 +1,179 @@
+package com.csye6225.webapp.loadtest;
+
+import com.csye6225.webapp.WebappApplication;
+import com.csye6225.webapp.model.User;
+import com.csye6225.webapp.repository.UserRepository;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Starts the app once with platform threads and once with virtual threads and drives the same
+// closed-loop load at both, then prints throughput and latency percentiles side by side.
+// The mix is 70% GET /v1/user/self, 20% GET /healthz (served from the health snapshot) and
+// 10% POST /v1/user (BCrypt and an insert).
+//
+// Runs against the in-memory H2 test profile by default, where JDBC barely blocks. For numbers
+// that mean something, point it at a real Postgres with -Dspring.datasource.url=... (plus
+// username, password and driver-class-name=org.postgresql.Driver).
+//
+// mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+//     -Dexec.args="-Dconcurrency=400 -DdurationSeconds=30 -cp %classpath com.csye6225.webapp.loadtest.ThreadModeLoadHarness"
+public class ThreadModeLoadHarness {
+
+    private static final String EMAIL = "load@example.com";
+
+    private static final String PASSWORD = "password";
+
+    private static final AtomicLong signups = new AtomicLong();
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = Integer.getInteger("concurrency", 400);
+        Duration warmup = Duration.ofSeconds(Long.getLong("warmupSeconds", 10));
+        Duration duration = Duration.ofSeconds(Long.getLong("durationSeconds", 30));
+        int poolSize = Integer.getInteger("poolSize", 10);
+
+        List<Result> results = new ArrayList<>();
+        for (boolean virtualThreads : new boolean[]{false, true}) {
+            results.add(run(virtualThreads, concurrency, poolSize, warmup, duration));
+        }
+
+        System.out.printf("%nconcurrency=%d, hikari pool=%d, %ds measured%n", concurrency, poolSize, duration.toSeconds());
+        System.out.printf("%-10s %12s %10s %10s %10s %10s%n", "mode", "req/s", "p50 ms", "p99 ms", "max ms", "errors");
+        for (Result result : results) {
+            System.out.printf("%-10s %12.1f %10.2f %10.2f %10.2f %10d%n", result.mode(), result.throughput(),
+                    result.percentileMillis(0.50), result.percentileMillis(0.99), result.percentileMillis(1.0), result.errors());
+        }
+        System.exit(0);
+    }
+
+    private static Result run(boolean virtualThreads, int concurrency, int poolSize, Duration warmup, Duration duration) throws Exception {
+        // Arguments rather than default properties, which application.properties would override
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(WebappApplication.class)
+                .profiles("test")
+                .run(
+                        "--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--db.pool.max-size=" + poolSize,
+                        // Every simulated client shares one address and account
+                        "--rate-limit.enabled=false",
+                        // Measures the thread model, not how much the limiter sheds
+                        "--concurrency-limit.enabled=false",
+                        "--spring.jpa.properties.hibernate.generate_statistics=false",
+                        "--logging.level.root=WARN");
+        try {
+            seedUser(context);
+            URI baseUri = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port"));
+
+            try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                HttpClient httpClient = HttpClient.newBuilder()
+                        .executor(clients)
+                        .connectTimeout(Duration.ofSeconds(5))
+                        .build();
+                drive(httpClient, baseUri, clients, concurrency, warmup);
+                return Result.of(virtualThreads ? "virtual" : "platform", duration,
+                        drive(httpClient, baseUri, clients, concurrency, duration));
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    private static void seedUser(ConfigurableApplicationContext context) {
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        if (userRepository.findByEmail(EMAIL) != null) {
+            return;
+        }
+        User user = new User();
+        user.setEmail(EMAIL);
+        user.setFirstName("Load");
+        user.setLastName("Test");
+        user.setPassword(context.getBean(PasswordEncoder.class).encode(PASSWORD));
+        user.setEmailVerified(true);
+        userRepository.save(user);
+    }
+
+    private static List<Latencies> drive(HttpClient httpClient, URI baseUri, ExecutorService clients,
+                                         int concurrency, Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Future<Latencies>> workers = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            workers.add(clients.submit(() -> {
+                Latencies latencies = new Latencies();
+                while (System.nanoTime() < deadline) {
+                    HttpRequest request = nextRequest(baseUri);
+                    long start = System.nanoTime();
+                    try {
+                        int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        if (status >= 400) {
+                            latencies.recordError();
+                        }
+                    } catch (Exception e) {
+                        latencies.recordError();
+                    }
+                    latencies.add(System.nanoTime() - start);
+                }
+                return latencies;
+            }));
+        }
+        List<Latencies> results = new ArrayList<>(concurrency);
+        for (Future<Latencies> worker : workers) {
+            results.add(worker.get());
+        }
+        return results;
+    }
+
+    private static HttpRequest nextRequest(URI baseUri) {
+        int roll = ThreadLocalRandom.current().nextInt(100);
+        if (roll < 70) {
+            return HttpRequest.newBuilder(baseUri.resolve("/v1/user/self"))
+                    .header("Authorization", basic(EMAIL, PASSWORD))
+                    .GET()
+                    .build();
+        }
+        if (roll < 90) {
+            return HttpRequest.newBuilder(baseUri.resolve("/healthz")).GET().build();
+        }
+        String body = "{\"email\":\"signup" + signups.incrementAndGet() + "@example.com\",\"firstName\":\"Load\","
+                + "\"lastName\":\"Test\",\"password\":\"" + PASSWORD + "\"}";
+        return HttpRequest.newBuilder(baseUri.resolve("/v1/user"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static String basic(String email, String password) {
+        return "Basic " + Base64.getEncoder().encodeToString((email + ":" + password).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private record Result(String mode, double throughput, Latencies latencies) {
+
+        static Result of(String mode, Duration duration, List<Latencies> results) {
+            Latencies latencies = new Latencies();
+            results.forEach(latencies::merge);
+            return new Result(mode, latencies.count() / (double) duration.toSeconds(), latencies);
+        }
+
+        double percentileMillis(double percentile) {
+            return latencies.percentileMillis(percentile);
+        }
+
+        long errors() {
+            return latencies.errors();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.csye6225.webapp.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TimingAspectTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private TimedTarget target;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        AspectJProxyFactory factory = new AspectJProxyFactory(new TimedTarget());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new TimingAspect(meterRegistry));
+        target = factory.getProxy();
+    }
+
+    @Test
+    void testTypeLevelPrefix_timesEachMethodUnderItsName() {
+        target.work();
+        target.work();
+
+        assertEquals(2, timer("test.target.work.time").count());
+    }
+
+    @Test
+    void testMethodLevelName_overridesTypePrefix() {
+        assertThrows(IllegalStateException.class, () -> target.fail());
+
+        assertEquals(1, timer("test.failure.time").count());
+    }
+
+    @Test
+    void testCompletionStage_recordedWhenStageCompletes() {
+        CompletableFuture<String> future = target.later();
+        assertEquals(0, timer("test.target.later.time").count());
+
+        future.complete("done");
+
+        assertEquals("done", future.join());
+        assertEquals(1, timer("test.target.later.time").count());
+    }
+
+    private Timer timer(String name) {
+        Timer timer = meterRegistry.find(name).timer();
+        assertNotNull(timer, "No timer named " + name);
+        return timer;
+    }
+
+    @Timed("test.target")
+    static class TimedTarget {
+
+        final CompletableFuture<String> pending = new CompletableFuture<>();
+
+        public void work() {
+        }
+
+        @Timed("test.failure")
+        public void fail() {
+            throw new IllegalStateException("failed");
+        }
+
+        public CompletableFuture<String> later() {
+            return pending;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.csye6225.webapp.repository;
+
+import com.csye6225.webapp.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class UserRepositoryCacheTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+        // The JCache manager is shared by every test context and outlives their dropped schemas
+        entityManagerFactory.getCache().evictAll();
+        User user = new User();
+        user.setEmail("cached@example.com");
+        user.setFirstName("John");
+        user.setLastName("Doe");
+        user.setPassword("hash");
+        userRepository.save(user);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        // Warm the caches, then count only what the repeated lookup does
+        userRepository.findByEmail("cached@example.com");
+        statistics.clear();
+    }
+
+    @Test
+    void testFindByEmail_repeatedLookupSkipsDatabase() {
+        User user = userRepository.findByEmail("cached@example.com");
+
+        assertEquals("John", user.getFirstName());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertTrue(statistics.getNaturalIdCacheHitCount() > 0);
+        assertTrue(statistics.getSecondLevelCacheHitCount() > 0);
+        assertTrue(meterRegistry.get("db.userRepository.findByEmail.time").timer().count() > 0);
+    }
+
+    @Test
+    void testFindByEmail_seesWritesThroughCache() {
+        User user = userRepository.findByEmail("cached@example.com");
+        user.setFirstName("Jane");
+        userRepository.save(user);
+        statistics.clear();
+
+        assertEquals("Jane", userRepository.findByEmail("cached@example.com").getFirstName());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testConditionalUpdates_evictOnlyTheUpdatedRow() {
+        User other = new User();
+        other.setEmail("other@example.com");
+        other.setFirstName("Jane");
+        other.setLastName("Doe");
+        other.setPassword("hash");
+        other.setProfilePicUrl("profile-pictures/other/picture.png");
+        userRepository.save(other);
+        userRepository.findByEmail("other@example.com");
+        Long id = userRepository.findByEmail("cached@example.com").getId();
+        statistics.clear();
+
+        assertEquals(1, userRepository.updatePasswordIfUnchanged(id, "hash", "{bcrypt}upgraded"));
+        assertEquals(0, userRepository.updatePasswordIfUnchanged(id, "hash", "{bcrypt}again"));
+        assertEquals(0, userRepository.clearProfilePicUrl(other.getId(), "profile-pictures/other/replaced.png"));
+        statistics.clear();
+
+        // The untouched row is still served from the cache, the updated one is read again
+        assertEquals("profile-pictures/other/picture.png", userRepository.findByEmail("other@example.com").getProfilePicUrl());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals("{bcrypt}upgraded", userRepository.findByEmail("cached@example.com").getPassword());
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        assertEquals(1, userRepository.clearProfilePicUrl(other.getId(), "profile-pictures/other/picture.png"));
+        statistics.clear();
+        assertNull(userRepository.findByEmail("other@example.com").getProfilePicUrl());
+        assertEquals("{bcrypt}upgraded", userRepository.findByEmail("cached@example.com").getPassword());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testUpdateProfile_writesOnlyChangedColumns() {
+        User user = userRepository.findByEmail("cached@example.com");
+
+        assertEquals(1, userRepository.updateProfile(user, "Jane", null, null));
+        statistics.clear();
+
+        User updated = userRepository.findByEmail("cached@example.com");
+        assertEquals("Jane", updated.getFirstName());
+        assertEquals("Doe", updated.getLastName());
+        assertEquals("hash", updated.getPassword());
+        assertTrue(updated.getAccountUpdated().isAfter(user.getAccountUpdated()));
+        // Evicted after the commit, so the new row is read once
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testFindByEmail_unknownEmailReturnsNull() {
+        assertNull(userRepository.findByEmail("missing@example.com"));
+    }
+}
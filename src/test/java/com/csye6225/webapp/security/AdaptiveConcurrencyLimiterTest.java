@@ -0,0 +1,60 @@
+package com.csye6225.webapp.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    @Test
+    void testTryAcquire_rejectsAtLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 0.5, 100);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(2, limiter.getInFlight());
+
+        limiter.onComplete(FAST, false);
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void testOnComplete_growsWhenFastAndBusy() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 5, 0.5, 100);
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        limiter.onComplete(FAST, false);
+        limiter.onComplete(FAST, false);
+        assertEquals(5, limiter.getLimit());
+
+        // Capped at the maximum, and no growth once mostly idle
+        limiter.onComplete(FAST, false);
+        limiter.onComplete(FAST, false);
+        assertEquals(5, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void testOnComplete_backsOffWhenSlowOrFailed() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 3, 10, 0.5, 100);
+
+        limiter.tryAcquire();
+        limiter.onComplete(SLOW, false);
+        assertEquals(4, limiter.getLimit());
+
+        limiter.tryAcquire();
+        limiter.onComplete(FAST, true);
+        assertEquals(3, limiter.getLimit());
+    }
+}
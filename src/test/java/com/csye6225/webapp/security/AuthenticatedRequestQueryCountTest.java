@@ -0,0 +1,149 @@
+package com.csye6225.webapp.security;
+
+import com.csye6225.webapp.model.User;
+import com.csye6225.webapp.repository.UserRepository;
+import com.jayway.jsonpath.JsonPath;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AuthenticatedRequestQueryCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private VerifiedCredentialCache verifiedCredentialCache;
+
+    @SpyBean
+    private JdbcTemplate jdbcTemplate;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+        // Other test contexts recreate the schema, so ids can repeat across the JVM-wide cache
+        entityManagerFactory.getCache().evictAll();
+        saveUser("verified@example.com", true);
+        saveUser("unverified@example.com", false);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void testGetSelf_atMostOneQuery() throws Exception {
+        mockMvc.perform(get("/v1/user/self").header(HttpHeaders.AUTHORIZATION, basic("verified@example.com")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email").value("verified@example.com"))
+                .andExpect(jsonPath("$.firstName").value("John"));
+
+        assertTrue(statistics.getPrepareStatementCount() <= 1,
+                "Expected at most one query, got " + statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testGetSelf_unverifiedUserRejectedWithAtMostOneQuery() throws Exception {
+        mockMvc.perform(get("/v1/user/self").header(HttpHeaders.AUTHORIZATION, basic("unverified@example.com")))
+                .andExpect(status().isForbidden());
+
+        assertTrue(statistics.getPrepareStatementCount() <= 1,
+                "Expected at most one query, got " + statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testUpdateSelf_singleUpdateOfChangedColumn() throws Exception {
+        // Warm the credential cache, as the client's previous request would have
+        mockMvc.perform(get("/v1/user/self").header(HttpHeaders.AUTHORIZATION, basic("verified@example.com")))
+                .andExpect(status().isOk());
+        statistics.clear();
+
+        mockMvc.perform(put("/v1/user/self").header(HttpHeaders.AUTHORIZATION, basic("verified@example.com"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\": \"verified@example.com\", \"firstName\": \"Jane\", \"lastName\": \"Doe\", \"password\": \"password\"}"))
+                .andExpect(status().isNoContent());
+
+        // Nothing through Hibernate, the user came from the cache: the only statement is the UPDATE
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityUpdateCount());
+        Mockito.verify(jdbcTemplate).update(Mockito.startsWith("UPDATE users SET"), Mockito.any(Object[].class));
+        User user = userRepository.findByEmail("verified@example.com");
+        assertEquals("Jane", user.getFirstName());
+        assertTrue(passwordEncoder.matches("password", user.getPassword()));
+    }
+
+    @Test
+    void testGetSelf_sessionTokenSkipsPasswordCheck() throws Exception {
+        MvcResult result = mockMvc.perform(post("/v1/user/self/token").header(HttpHeaders.AUTHORIZATION, basic("verified@example.com")))
+                .andExpect(status().isCreated())
+                .andReturn();
+        String token = JsonPath.read(result.getResponse().getContentAsString(), "$.token");
+        // Drop the cached credential, so Basic auth would have to query and hash again
+        verifiedCredentialCache.invalidate("verified@example.com");
+        statistics.clear();
+
+        mockMvc.perform(get("/v1/user/self").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email").value("verified@example.com"))
+                .andExpect(jsonPath("$.firstName").value("John"));
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        mockMvc.perform(get("/v1/user/self").header(HttpHeaders.AUTHORIZATION, "Bearer " + token + "x"))
+                .andExpect(status().isUnauthorized());
+        // A token cannot be renewed with itself
+        mockMvc.perform(post("/v1/user/self/token").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isForbidden());
+    }
+
+    private void saveUser(String email, boolean verified) {
+        User user = new User();
+        user.setEmail(email);
+        user.setFirstName("John");
+        user.setLastName("Doe");
+        user.setPassword(passwordEncoder.encode("password"));
+        user.setEmailVerified(verified);
+        userRepository.save(user);
+    }
+
+    private String basic(String email) {
+        return "Basic " + Base64.getEncoder().encodeToString((email + ":password").getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,93 @@
+package com.csye6225.webapp.security;
+
+import com.timgroup.statsd.StatsDClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ConcurrencyLimitFilterTest {
+
+    private StatsDClient statsDClient;
+
+    private MeterRegistry meterRegistry;
+
+    private ConcurrencyLimitFilter concurrencyLimitFilter;
+
+    @BeforeEach
+    void setUp() {
+        statsDClient = Mockito.mock(StatsDClient.class);
+        meterRegistry = new SimpleMeterRegistry();
+        // One request in flight per group, latency threshold of a minute so tests never back off
+        concurrencyLimitFilter = new ConcurrencyLimitFilter(statsDClient, meterRegistry, 0.5, 1,
+                1, 1, 1, 60_000, 1, 1, 1, 60_000, 1, 1, 1, 60_000);
+    }
+
+    @Test
+    void testExpensiveRoute_shedsWhileFullWithoutBlockingCheapRoutes() throws ServletException, IOException {
+        MockHttpServletResponse[] nested = new MockHttpServletResponse[3];
+        FilterChain signup = (request, response) -> {
+            // Another signup, a lookup and the health check arrive while this signup is in flight
+            nested[0] = filter(new MockHttpServletRequest("PUT", "/v1/user/self"), (req, res) -> { });
+            nested[1] = filter(new MockHttpServletRequest("GET", "/v1/user/self"), (req, res) -> { });
+            nested[2] = filter(new MockHttpServletRequest("GET", "/healthz"), (req, res) -> { });
+        };
+
+        assertEquals(200, filter(new MockHttpServletRequest("POST", "/v1/user"), signup).getStatus());
+        assertEquals(503, nested[0].getStatus());
+        assertEquals("1", nested[0].getHeader("Retry-After"));
+        assertEquals(200, nested[1].getStatus());
+        assertEquals(200, nested[2].getStatus());
+        Mockito.verify(statsDClient).incrementCounter("concurrency.expensive.rejected_count");
+
+        // The slot is released once the request finishes
+        assertEquals(200, filter(new MockHttpServletRequest("PUT", "/v1/user/self"), (req, res) -> { }).getStatus());
+        assertEquals(0, meterRegistry.get("concurrency.expensive.in_flight").gauge().value());
+        assertEquals(1, meterRegistry.get("concurrency.expensive.limit").gauge().value());
+    }
+
+    @Test
+    void testServerError_backsOffLimit() throws ServletException, IOException {
+        meterRegistry = new SimpleMeterRegistry();
+        concurrencyLimitFilter = new ConcurrencyLimitFilter(statsDClient, meterRegistry, 0.5, 1,
+                1, 1, 1, 60_000, 4, 1, 4, 60_000, 1, 1, 1, 60_000);
+
+        filter(new MockHttpServletRequest("POST", "/v1/user"), (req, res) -> ((MockHttpServletResponse) res).setStatus(500));
+        assertEquals(2, meterRegistry.get("concurrency.expensive.limit").gauge().value());
+    }
+
+    @Test
+    void testSlowUpload_doesNotShrinkExpensiveLimit() throws ServletException, IOException {
+        meterRegistry = new SimpleMeterRegistry();
+        concurrencyLimitFilter = new ConcurrencyLimitFilter(statsDClient, meterRegistry, 0.5, 1,
+                1, 1, 1, 60_000, 4, 1, 4, 1, 4, 1, 4, 1);
+
+        // A client trickling its picture in is slower than the signup threshold
+        filter(new MockHttpServletRequest("POST", "/v1/user/self/pic"), (req, res) -> sleep(20));
+        assertEquals(4, meterRegistry.get("concurrency.expensive.limit").gauge().value());
+        assertEquals(2, meterRegistry.get("concurrency.upload.limit").gauge().value());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private MockHttpServletResponse filter(MockHttpServletRequest request, FilterChain chain) throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        concurrencyLimitFilter.doFilter(request, response, chain);
+        return response;
+    }
+}
@@ -0,0 +1,92 @@
+package com.csye6225.webapp.security;
+
+import com.csye6225.webapp.exception.PasswordHashingUnavailableException;
+import com.timgroup.statsd.StatsDClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PooledPasswordEncoderTest {
+
+    private final CountDownLatch started = new CountDownLatch(1);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private StatsDClient statsDClient;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private PooledPasswordEncoder passwordEncoder;
+
+    @BeforeEach
+    void setUp() {
+        statsDClient = Mockito.mock(StatsDClient.class);
+        meterRegistry = new SimpleMeterRegistry();
+        // Blocks in encode until released, so the test controls when the single worker is busy
+        PasswordEncoder blocking = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hashed-" + rawPassword;
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encodedPassword.equals("hashed-" + rawPassword);
+            }
+        };
+        passwordEncoder = new PooledPasswordEncoder(blocking, 1, 1, 2, statsDClient, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        passwordEncoder.shutdown();
+    }
+
+    @Test
+    void testEncode_runsOnPoolAndRecordsTimers() {
+        release.countDown();
+
+        assertEquals("hashed-password", passwordEncoder.encode("password"));
+        assertTrue(passwordEncoder.matches("password", "hashed-password"));
+        assertEquals(2, meterRegistry.get("auth.passwordHash.hash.time").timer().count());
+        assertEquals(2, meterRegistry.get("auth.passwordHash.queueWait.time").timer().count());
+    }
+
+    @Test
+    void testEncode_rejectsWhenQueueIsFull() throws InterruptedException {
+        // One task running, one queued, the third is rejected
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> passwordEncoder.encode("first"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> passwordEncoder.encode("second"));
+        while (meterRegistry.get("auth.passwordHash.queue_size").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        PasswordHashingUnavailableException e = assertThrows(PasswordHashingUnavailableException.class,
+                () -> passwordEncoder.encode("third"));
+        assertEquals(2, e.getRetryAfterSeconds());
+        Mockito.verify(statsDClient).incrementCounter("auth.passwordHash.rejected_count");
+
+        release.countDown();
+        assertEquals("hashed-first", running.join());
+        assertEquals("hashed-second", queued.join());
+    }
+}
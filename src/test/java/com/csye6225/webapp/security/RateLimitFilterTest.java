@@ -0,0 +1,102 @@
+package com.csye6225.webapp.security;
+
+import com.timgroup.statsd.StatsDClient;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RateLimitFilterTest {
+
+    private StatsDClient statsDClient;
+
+    private FilterChain filterChain;
+
+    private RateLimitFilter rateLimitFilter;
+
+    @BeforeEach
+    void setUp() {
+        statsDClient = Mockito.mock(StatsDClient.class);
+        filterChain = Mockito.mock(FilterChain.class);
+        // Signup: 2 per IP, refilling every 10s. Authenticated: 100 per IP, 2 per email
+        rateLimitFilter = new RateLimitFilter(statsDClient, 1000, 600, 2, 0.1, 100, 100, 2, 0.1);
+    }
+
+    @Test
+    void testSignup_throttledPerIpWithRetryAfter() throws ServletException, IOException {
+        assertEquals(200, filter(request("POST", "/v1/user", "10.0.0.1", null)).getStatus());
+        assertEquals(200, filter(request("POST", "/v1/user", "10.0.0.1", null)).getStatus());
+
+        MockHttpServletResponse throttled = filter(request("POST", "/v1/user", "10.0.0.1", null));
+        assertEquals(429, throttled.getStatus());
+        assertEquals("10", throttled.getHeader("Retry-After"));
+        assertEquals(200, filter(request("POST", "/v1/user", "10.0.0.2", null)).getStatus());
+
+        Mockito.verify(filterChain, Mockito.times(3)).doFilter(Mockito.any(), Mockito.any());
+        Mockito.verify(statsDClient).incrementCounter("ratelimit.signup.ip.throttled_count");
+    }
+
+    @Test
+    void testAuthenticated_unverifiedUsernameDoesNotChargeAccount() throws ServletException, IOException {
+        // Before authentication only the address is limited, so guesses cannot lock the account out
+        for (int i = 0; i < 5; i++) {
+            assertEquals(200, filter(request("GET", "/v1/user/self", "10.0.0." + i, "victim@example.com")).getStatus());
+        }
+        assertEquals(0, rateLimitFilter.throttleAccount("victim@example.com"));
+    }
+
+    @Test
+    void testAccountFilter_throttlesAuthenticatedAccountAcrossAddresses() throws ServletException, IOException {
+        AccountRateLimitFilter accountFilter = new AccountRateLimitFilter(rateLimitFilter);
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated("john@example.com", null, AuthorityUtils.NO_AUTHORITIES));
+        try {
+            int[] statuses = new int[3];
+            for (int i = 0; i < 3; i++) {
+                MockHttpServletResponse response = new MockHttpServletResponse();
+                accountFilter.doFilter(request("GET", "/v1/user/self", "10.0.0." + i, null), response, filterChain);
+                statuses[i] = response.getStatus();
+            }
+            assertEquals(200, statuses[0]);
+            assertEquals(200, statuses[1]);
+            assertEquals(429, statuses[2]);
+            Mockito.verify(statsDClient).incrementCounter("ratelimit.authenticated.email.throttled_count");
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Test
+    void testOtherRoutes_notLimited() throws ServletException, IOException {
+        for (int i = 0; i < 10; i++) {
+            assertEquals(200, filter(request("GET", "/v1/user/verify", "10.0.0.1", null)).getStatus());
+        }
+    }
+
+    private MockHttpServletRequest request(String method, String uri, String remoteAddr, String email) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setRemoteAddr(remoteAddr);
+        if (email != null) {
+            request.addHeader("Authorization", "Basic " + Base64.getEncoder().encodeToString((email + ":password").getBytes(StandardCharsets.UTF_8)));
+        }
+        return request;
+    }
+
+    private MockHttpServletResponse filter(MockHttpServletRequest request) throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        rateLimitFilter.doFilter(request, response, filterChain);
+        return response;
+    }
+}
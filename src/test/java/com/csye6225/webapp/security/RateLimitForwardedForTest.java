@@ -0,0 +1,47 @@
+package com.csye6225.webapp.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Through a real Tomcat, since the client address comes from its RemoteIpValve. Requests arrive
+// from 127.0.0.1, a trusted proxy, standing in for the load balancer
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "rate-limit.signup.per-ip.capacity=1",
+        "rate-limit.signup.per-ip.refill-per-second=0.001"
+})
+@ActiveProfiles("test")
+class RateLimitForwardedForTest {
+
+    @LocalServerPort
+    private int port;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @Test
+    void testSignup_limitedPerForwardedClient() throws Exception {
+        // Admitted requests fail validation with 400, throttled ones get 429
+        assertEquals(400, signup("203.0.113.1"));
+        assertEquals(429, signup("203.0.113.1"));
+        assertEquals(400, signup("203.0.113.2"));
+        // A client cannot pick its address: the valve takes the rightmost untrusted entry
+        assertEquals(429, signup("198.51.100.7, 203.0.113.1"));
+    }
+
+    private int signup(String forwardedFor) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/v1/user"))
+                .header("Content-Type", "application/json")
+                .header("X-Forwarded-For", forwardedFor)
+                .POST(HttpRequest.BodyPublishers.ofString("{}"))
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
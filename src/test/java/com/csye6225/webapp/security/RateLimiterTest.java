@@ -0,0 +1,50 @@
+package com.csye6225.webapp.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimiterTest {
+
+    private final AtomicLong nanos = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+
+    @Test
+    void testTryAcquire_burstThenRefill() {
+        RateLimiter rateLimiter = new RateLimiter(3, 2, 100, Duration.ofMinutes(10), nanos::get);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, rateLimiter.tryAcquire("10.0.0.1"));
+        }
+        // Empty: the next token is 500ms away at 2 per second
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), rateLimiter.tryAcquire("10.0.0.1"));
+        // Other keys have their own bucket
+        assertEquals(0, rateLimiter.tryAcquire("10.0.0.2"));
+
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals(0, rateLimiter.tryAcquire("10.0.0.1"));
+        assertTrue(rateLimiter.tryAcquire("10.0.0.1") > 0);
+
+        // Refills up to capacity, not beyond
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(60));
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, rateLimiter.tryAcquire("10.0.0.1"));
+        }
+        assertTrue(rateLimiter.tryAcquire("10.0.0.1") > 0);
+    }
+
+    @Test
+    void testTryAcquire_boundedNumberOfBuckets() {
+        RateLimiter rateLimiter = new RateLimiter(1, 1, 10, Duration.ofMinutes(10), nanos::get);
+
+        for (int i = 0; i < 1000; i++) {
+            rateLimiter.tryAcquire("10.0.0." + i);
+        }
+
+        assertTrue(rateLimiter.size() <= 10);
+    }
+}
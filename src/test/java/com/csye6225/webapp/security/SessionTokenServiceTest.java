@@ -0,0 +1,65 @@
+package com.csye6225.webapp.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionTokenServiceTest {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString(new byte[32]);
+
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+
+    private final UserPrincipal principal = new UserPrincipal(7L, "john:doe@example.com", null, "John", "Doe", true, null,
+            LocalDateTime.now(), LocalDateTime.now());
+
+    @Test
+    void testVerify_acceptsIssuedToken() {
+        SessionTokenService service = service(NOW);
+
+        SessionTokenPrincipal verified = service.verify(service.issue(principal));
+
+        assertNotNull(verified);
+        assertEquals(7L, verified.id());
+        assertEquals("john:doe@example.com", verified.getName());
+        assertTrue(verified.emailVerified());
+        assertEquals(NOW.plusSeconds(900), verified.expiresAt());
+    }
+
+    @Test
+    void testVerify_rejectsTamperedOrForeignToken() {
+        SessionTokenService service = service(NOW);
+        String token = service.issue(principal);
+        String payload = token.substring(0, token.indexOf('.'));
+        String forgedPayload = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("8:1:9999999999:other@example.com".getBytes());
+
+        assertNull(service.verify(forgedPayload + token.substring(token.indexOf('.'))));
+        assertNull(service.verify(payload + ".AAAA"));
+        assertNull(service.verify("not a token"));
+        assertNull(new SessionTokenService(Base64.getEncoder().encodeToString(new byte[]{1, 2, 3, 4}), Duration.ofMinutes(15),
+                Clock.fixed(NOW, ZoneOffset.UTC)).verify(token));
+    }
+
+    @Test
+    void testVerify_rejectsExpiredToken() {
+        String token = service(NOW).issue(principal);
+
+        assertNotNull(service(NOW.plusSeconds(899)).verify(token));
+        assertNull(service(NOW.plusSeconds(900)).verify(token));
+    }
+
+    private SessionTokenService service(Instant now) {
+        return new SessionTokenService(SECRET, Duration.ofSeconds(900), Clock.fixed(now, ZoneOffset.UTC));
+    }
+}
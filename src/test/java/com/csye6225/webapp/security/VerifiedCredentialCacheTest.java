@@ -0,0 +1,53 @@
+package com.csye6225.webapp.security;
+
+import com.timgroup.statsd.StatsDClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class VerifiedCredentialCacheTest {
+
+    private VerifiedCredentialCache verifiedCredentialCache;
+
+    private StatsDClient statsDClient;
+
+    @BeforeEach
+    void setUp() {
+        statsDClient = Mockito.mock(StatsDClient.class);
+        verifiedCredentialCache = new VerifiedCredentialCache(statsDClient, 100, 60);
+    }
+
+    @Test
+    void testGet_hitAfterPut() {
+        UserDetails userDetails = new User("test@example.com", "hashedPassword", new ArrayList<>());
+        verifiedCredentialCache.put("test@example.com", "password", userDetails);
+
+        assertSame(userDetails, verifiedCredentialCache.get("test@example.com", "password"));
+        Mockito.verify(statsDClient).incrementCounter("auth.credentialCache.hit_count");
+    }
+
+    @Test
+    void testGet_wrongPasswordMisses() {
+        UserDetails userDetails = new User("test@example.com", "hashedPassword", new ArrayList<>());
+        verifiedCredentialCache.put("test@example.com", "password", userDetails);
+
+        assertNull(verifiedCredentialCache.get("test@example.com", "wrongPassword"));
+        Mockito.verify(statsDClient).incrementCounter("auth.credentialCache.miss_count");
+    }
+
+    @Test
+    void testInvalidate() {
+        UserDetails userDetails = new User("test@example.com", "hashedPassword", new ArrayList<>());
+        verifiedCredentialCache.put("test@example.com", "password", userDetails);
+        verifiedCredentialCache.invalidate("test@example.com");
+
+        assertNull(verifiedCredentialCache.get("test@example.com", "password"));
+    }
+}
@@ -0,0 +1,146 @@
+package com.csye6225.webapp.service;
+
+import com.csye6225.webapp.model.SentEmail;
+import com.csye6225.webapp.model.User;
+import com.csye6225.webapp.repository.SentEmailRepository;
+import com.csye6225.webapp.repository.TokenVerification;
+import com.csye6225.webapp.repository.UserRepository;
+import com.timgroup.statsd.StatsDClient;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class EmailVerificationServiceTest {
+
+    private static final int CLICKS = 8;
+
+    @Autowired
+    private EmailVerificationService emailVerificationService;
+
+    @Autowired
+    private SentEmailRepository sentEmailRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        sentEmailRepository.deleteAll();
+        userRepository.deleteAll();
+        // The JCache manager is shared by every test context and outlives their dropped schemas
+        entityManagerFactory.getCache().evictAll();
+        saveUser("john@example.com");
+    }
+
+    @Test
+    void testVerifyEmail_verifiesOnceAndRepeatClicksSucceed() {
+        // Cache the unverified user, verification has to replace it
+        assertFalse(userRepository.findByEmail("john@example.com").getEmailVerified());
+        saveSentEmail("john@example.com", "token-1", Instant.now());
+
+        assertEquals("Email successfully verified!", emailVerificationService.verifyEmail("token-1"));
+        assertEquals("Email successfully verified!", emailVerificationService.verifyEmail("token-1"));
+
+        assertTrue(userRepository.findByEmail("john@example.com").getEmailVerified());
+        assertEquals("VERIFIED", sentEmailRepository.findByToken("token-1").orElseThrow().getStatus());
+    }
+
+    @Test
+    void testVerifyEmail_repeatClickAfterPurgeSucceeds() {
+        saveSentEmail("john@example.com", "token-3", Instant.now());
+        emailVerificationService.verifyEmail("token-3");
+
+        SentEmailPurger purger = new SentEmailPurger(sentEmailRepository, Mockito.mock(StatsDClient.class), transactionManager,
+                Clock.offset(Clock.systemUTC(), Duration.ofHours(1)), 120, 100, 10);
+        purger.purgeExpired();
+
+        assertEquals("Email successfully verified!", emailVerificationService.verifyEmail("token-3"));
+    }
+
+    @Test
+    void testVerifyEmail_rejectsExpiredAndUnknownTokens() {
+        saveSentEmail("john@example.com", "expired", Instant.now().minusSeconds(3600));
+
+        assertThrows(IllegalArgumentException.class, () -> emailVerificationService.verifyEmail("expired"));
+        assertThrows(IllegalArgumentException.class, () -> emailVerificationService.verifyEmail("unknown"));
+        assertFalse(userRepository.findByEmail("john@example.com").getEmailVerified());
+    }
+
+    @Test
+    void testVerifyToken_concurrentClicksVerifyExactlyOnce() throws InterruptedException, ExecutionException {
+        saveSentEmail("john@example.com", "token-2", Instant.now());
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(CLICKS);
+        List<Future<TokenVerification>> clicks = new ArrayList<>();
+        try {
+            for (int i = 0; i < CLICKS; i++) {
+                clicks.add(executor.submit(() -> {
+                    start.await();
+                    return sentEmailRepository.verifyToken("token-2", Instant.now().minusSeconds(120));
+                }));
+            }
+            start.countDown();
+
+            int verified = 0;
+            for (Future<TokenVerification> click : clicks) {
+                TokenVerification.Result result = click.get().result();
+                if (result == TokenVerification.Result.VERIFIED) {
+                    verified++;
+                } else {
+                    assertEquals(TokenVerification.Result.ALREADY_VERIFIED, result);
+                }
+            }
+            assertEquals(1, verified);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void saveUser(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setFirstName("John");
+        user.setLastName("Doe");
+        user.setPassword("hash");
+        userRepository.save(user);
+    }
+
+    private void saveSentEmail(String email, String token, Instant sentAt) {
+        SentEmail sentEmail = new SentEmail();
+        sentEmail.setEmail(email);
+        sentEmail.setToken(token);
+        sentEmail.setSentAt(Timestamp.from(sentAt));
+        sentEmailRepository.save(sentEmail);
+    }
+}
@@ -0,0 +1,95 @@
+package com.csye6225.webapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.sns.SnsAsyncClient;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+class HealthMonitorTest {
+
+    private DataSource dataSource;
+
+    private Connection connection;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private HealthMonitor healthMonitor;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource = Mockito.mock(DataSource.class);
+        connection = Mockito.mock(Connection.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        meterRegistry = new SimpleMeterRegistry();
+        // Not started, the test drives probe() itself
+        healthMonitor = new HealthMonitor(dataSource, Mockito.mock(S3AsyncClient.class), Mockito.mock(SnsAsyncClient.class),
+                meterRegistry, 5000, 2, 60000, 3, false, false, "test-bucket", "");
+    }
+
+    @AfterEach
+    void tearDown() {
+        healthMonitor.shutdown();
+    }
+
+    @Test
+    void testNotReadyBeforeFirstProbe() {
+        assertFalse(healthMonitor.isReady());
+        assertTrue(healthMonitor.isLive());
+    }
+
+    @Test
+    void testProbe_publishesSnapshot() throws SQLException {
+        when(connection.isValid(2)).thenReturn(true);
+
+        healthMonitor.probe();
+
+        assertTrue(healthMonitor.isReady());
+        assertTrue(healthMonitor.getSnapshot().probes().get("database").up());
+        assertEquals(1, meterRegistry.get("health.probe.database.time").timer().count());
+        Mockito.verify(connection).close();
+    }
+
+    @Test
+    void testProbe_invalidConnectionIsNotReadyButLive() throws SQLException {
+        when(connection.isValid(2)).thenReturn(false);
+
+        healthMonitor.probe();
+
+        assertFalse(healthMonitor.isReady());
+        assertTrue(healthMonitor.isLive());
+    }
+
+    @Test
+    void testProbe_failureDetailsNotInSnapshot() throws Exception {
+        when(dataSource.getConnection()).thenThrow(new SQLException("Connection to db.internal:5432 refused"));
+
+        healthMonitor.probe();
+
+        assertFalse(healthMonitor.getSnapshot().probes().get("database").up());
+        assertFalse(new ObjectMapper().findAndRegisterModules().writeValueAsString(healthMonitor.getSnapshot()).contains("db.internal"));
+    }
+
+    @Test
+    void testProbe_keepsBoundedLatencyHistory() throws SQLException {
+        when(connection.isValid(2)).thenReturn(true);
+
+        for (int i = 0; i < 5; i++) {
+            healthMonitor.probe();
+        }
+
+        assertEquals(3, healthMonitor.getSnapshot().probes().get("database").latencyHistoryMicros().size());
+    }
+}
@@ -0,0 +1,52 @@
+package com.csye6225.webapp.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// In-process stand-in for the SNS topic that records every batch it receives
+public class InMemoryVerificationTopic implements VerificationTopic {
+
+    private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger failuresRemaining = new AtomicInteger();
+
+    private volatile List<Integer> rejectNext = List.of();
+
+    @Override
+    public List<Integer> publishBatch(List<String> messages) {
+        if (failuresRemaining.getAndUpdate(remaining -> Math.max(0, remaining - 1)) > 0) {
+            throw new IllegalStateException("Simulated publish failure");
+        }
+        List<Integer> rejected = rejectNext;
+        rejectNext = List.of();
+        List<String> accepted = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            if (!rejected.contains(i)) {
+                accepted.add(messages.get(i));
+            }
+        }
+        batches.add(accepted);
+        return rejected;
+    }
+
+    // The next call accepts the batch but reports the entries at these indexes as failed
+    public void rejectNextEntries(Integer... indexes) {
+        rejectNext = List.of(indexes);
+    }
+
+    public void failNextPublishes(int count) {
+        failuresRemaining.set(count);
+    }
+
+    public List<List<String>> getBatches() {
+        return batches;
+    }
+
+    public List<String> getMessages() {
+        List<String> messages = new ArrayList<>();
+        batches.forEach(messages::addAll);
+        return messages;
+    }
+}
@@ -0,0 +1,130 @@
+package com.csye6225.webapp.service;
+
+import com.csye6225.webapp.model.OutboxEvent;
+import com.csye6225.webapp.repository.OutboxEventRepository;
+import com.timgroup.statsd.StatsDClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.when;
+
+class OutboxRelayTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+
+    private final InMemoryVerificationTopic topic = new InMemoryVerificationTopic();
+
+    private OutboxEventRepository outboxEventRepository;
+
+    private StatsDClient statsDClient;
+
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        outboxEventRepository = Mockito.mock(OutboxEventRepository.class);
+        statsDClient = Mockito.mock(StatsDClient.class);
+        // Backoff of 1s doubling up to 10s, dead-lettered on the third failure
+        outboxRelay = new OutboxRelay(outboxEventRepository, topic, statsDClient, new SimpleMeterRegistry(),
+                Mockito.mock(PlatformTransactionManager.class), Clock.fixed(NOW, ZoneOffset.UTC), 25, 10,
+                Duration.ofMinutes(1), 3, Duration.ofSeconds(1), Duration.ofSeconds(10));
+    }
+
+    @Test
+    void testRelayBatch_publishesInChunksAndDeletes() {
+        List<OutboxEvent> events = events(25);
+        when(outboxEventRepository.lockNextBatch(Timestamp.from(NOW), 25)).thenReturn(events);
+
+        OutboxRelay.BatchResult result = outboxRelay.relayBatch();
+
+        assertEquals(25, result.published());
+        assertEquals(3, topic.getBatches().size());
+        assertTrue(topic.getBatches().stream().allMatch(batch -> batch.size() <= 10));
+        Mockito.verify(outboxEventRepository).deleteAllByIdInBatch(events.stream().map(OutboxEvent::getId).toList());
+        // Leased while the publish ran
+        assertTrue(events.stream().allMatch(event -> event.getAttempts() == 1
+                && event.getNextAttemptAt().equals(Timestamp.from(NOW.plus(Duration.ofMinutes(1))))));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRelayBatch_reschedulesEventsThatFailedToPublish() {
+        topic.failNextPublishes(1);
+        List<OutboxEvent> events = events(15);
+        when(outboxEventRepository.lockNextBatch(Timestamp.from(NOW), 25)).thenReturn(events);
+
+        OutboxRelay.BatchResult result = outboxRelay.relayBatch();
+
+        assertEquals(5, result.published());
+        ArgumentCaptor<List<Long>> deleted = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(outboxEventRepository).deleteAllByIdInBatch(deleted.capture());
+        assertEquals(List.of(11L, 12L, 13L, 14L, 15L), deleted.getValue());
+        for (long id = 1; id <= 10; id++) {
+            Mockito.verify(outboxEventRepository).reschedule(id, Timestamp.from(NOW.plusSeconds(1)));
+        }
+        Mockito.verify(outboxEventRepository, never()).deadLetter(anyLong(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRelayBatch_failedEntryMatchedByIndexNotPayload() {
+        List<OutboxEvent> events = events(2);
+        events.get(1).setPayload(events.get(0).getPayload());
+        topic.rejectNextEntries(1);
+        when(outboxEventRepository.lockNextBatch(Timestamp.from(NOW), 25)).thenReturn(events);
+
+        outboxRelay.relayBatch();
+
+        ArgumentCaptor<List<Long>> deleted = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(outboxEventRepository).deleteAllByIdInBatch(deleted.capture());
+        assertEquals(List.of(1L), deleted.getValue());
+        Mockito.verify(outboxEventRepository).reschedule(eq(2L), any());
+    }
+
+    @Test
+    void testRelayBatch_backsOffThenDeadLetters() {
+        List<OutboxEvent> events = events(2);
+        events.get(0).setAttempts(1);
+        events.get(1).setAttempts(2);
+        topic.failNextPublishes(1);
+        when(outboxEventRepository.lockNextBatch(Timestamp.from(NOW), 25)).thenReturn(events);
+
+        outboxRelay.relayBatch();
+
+        // Second attempt failed: 1s doubled once
+        Mockito.verify(outboxEventRepository).reschedule(1L, Timestamp.from(NOW.plusSeconds(2)));
+        Mockito.verify(outboxEventRepository).deadLetter(2L, Timestamp.from(NOW));
+        Mockito.verify(statsDClient).count("outbox.relay.dead_lettered_count", 1);
+        assertEquals(Duration.ofSeconds(10), outboxRelay.backoff(40));
+    }
+
+    private List<OutboxEvent> events(int count) {
+        List<OutboxEvent> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            OutboxEvent event = new OutboxEvent("USER_CREATED", "{\"email\": \"user" + i + "@example.com\"}");
+            ReflectionTestUtils.setField(event, "id", (long) i + 1);
+            event.setCreatedAt(new Timestamp(NOW.toEpochMilli()));
+            events.add(event);
+        }
+        return events;
+    }
+}
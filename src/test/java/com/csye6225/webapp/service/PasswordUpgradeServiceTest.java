@@ -0,0 +1,71 @@
+package com.csye6225.webapp.service;
+
+import com.csye6225.webapp.repository.UserRepository;
+import com.timgroup.statsd.StatsDClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+class PasswordUpgradeServiceTest {
+
+    private UserRepository userRepository;
+
+    private StatsDClient statsDClient;
+
+    private PasswordEncoder passwordEncoder;
+
+    private PasswordUpgradeService passwordUpgradeService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = Mockito.mock(UserRepository.class);
+        statsDClient = Mockito.mock(StatsDClient.class);
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(5);
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+        passwordEncoder = delegating;
+        passwordUpgradeService = new PasswordUpgradeService(userRepository, passwordEncoder, statsDClient,
+                Mockito.mock(PlatformTransactionManager.class), 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        passwordUpgradeService.shutdown();
+    }
+
+    @Test
+    void testNeedsUpgrade() {
+        // Unprefixed legacy hash and a lower cost both need a rehash, a current hash does not
+        assertTrue(passwordUpgradeService.needsUpgrade(new BCryptPasswordEncoder(5).encode("password")));
+        assertTrue(passwordUpgradeService.needsUpgrade("{bcrypt}" + new BCryptPasswordEncoder(4).encode("password")));
+        assertFalse(passwordUpgradeService.needsUpgrade(passwordEncoder.encode("password")));
+    }
+
+    @Test
+    void testUpgrade_replacesHashOnlyIfUnchanged() {
+        String legacy = new BCryptPasswordEncoder(4).encode("password");
+        when(userRepository.updatePasswordIfUnchanged(eq(1L), eq(legacy), any())).thenReturn(1);
+
+        passwordUpgradeService.upgrade(1L, "password", legacy);
+
+        ArgumentCaptor<String> upgraded = ArgumentCaptor.forClass(String.class);
+        Mockito.verify(userRepository).updatePasswordIfUnchanged(eq(1L), eq(legacy), upgraded.capture());
+        assertTrue(upgraded.getValue().startsWith("{bcrypt}$2a$05$"));
+        assertTrue(passwordEncoder.matches("password", upgraded.getValue()));
+        Mockito.verify(statsDClient).incrementCounter("auth.passwordUpgrade.count");
+    }
+}
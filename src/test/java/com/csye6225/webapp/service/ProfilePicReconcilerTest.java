@@ -0,0 +1,181 @@
+package com.csye6225.webapp.service;
+
+import com.csye6225.webapp.model.User;
+import com.csye6225.webapp.repository.UserRepository;
+import com.csye6225.webapp.security.VerifiedCredentialCache;
+import com.csye6225.webapp.stub.InMemoryS3Server;
+import com.timgroup.statsd.StatsDClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.when;
+
+class ProfilePicReconcilerTest {
+
+    private static final String BUCKET = "test-bucket";
+
+    private InMemoryS3Server s3Server;
+
+    private S3AsyncClient s3AsyncClient;
+
+    private UserRepository userRepository;
+
+    private VerifiedCredentialCache verifiedCredentialCache;
+
+    private ProfilePicReconciler reconciler;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        s3Server = InMemoryS3Server.start();
+        s3AsyncClient = S3AsyncClient.builder()
+                .region(Region.US_EAST_1)
+                .endpointOverride(s3Server.getEndpoint())
+                .forcePathStyle(true)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test")))
+                .build();
+        StatsDClient statsDClient = Mockito.mock(StatsDClient.class);
+        ProfilePicStorage profilePicStorage = new ProfilePicStorage(s3AsyncClient, statsDClient, BUCKET,
+                DataSize.ofMegabytes(8), DataSize.ofMegabytes(5), 1, 1, Duration.ofSeconds(2), false);
+        userRepository = Mockito.mock(UserRepository.class);
+        verifiedCredentialCache = Mockito.mock(VerifiedCredentialCache.class);
+        reconciler = new ProfilePicReconciler(userRepository, profilePicStorage, verifiedCredentialCache,
+                Mockito.mock(ProfilePicUrlCache.class), statsDClient,
+                Mockito.mock(PlatformTransactionManager.class), 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3AsyncClient.close();
+        s3Server.close();
+    }
+
+    @Test
+    void testReconcileAll_clearsRowsWhoseObjectIsMissing() {
+        List<User> users = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            users.add(user(id));
+        }
+        s3Server.putObject(BUCKET, users.get(0).getProfilePicUrl(), new byte[]{1});
+        s3Server.putObject(BUCKET, users.get(2).getProfilePicUrl(), new byte[]{1});
+        // Objects outside the checked keys must not count as matches
+        s3Server.putObject(BUCKET, "profile-pictures/2/other.png", new byte[]{1});
+        when(userRepository.findByProfilePicUrlIsNotNullAndIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class)))
+                .thenReturn(users.subList(0, 2));
+        when(userRepository.findByProfilePicUrlIsNotNullAndIdGreaterThanOrderByIdAsc(eq(2L), any(Pageable.class)))
+                .thenReturn(users.subList(2, 3));
+        when(userRepository.clearProfilePicUrl(2L, users.get(1).getProfilePicUrl())).thenReturn(1);
+
+        ProfilePicReconciler.ReconcileResult result = reconciler.reconcileAll();
+
+        assertEquals(3, result.scanned());
+        assertEquals(1, result.drifted());
+        assertEquals(1, result.fixed());
+        Mockito.verify(userRepository).clearProfilePicUrl(2L, users.get(1).getProfilePicUrl());
+        Mockito.verify(verifiedCredentialCache).invalidate("user2@example.com");
+    }
+
+    @Test
+    void testReconcileAll_keysOutOfIdOrderAndNonAsciiNames() {
+        // profile-pictures/10/ sorts before profile-pictures/9/, and U+FF21 before U+1F600 in
+        // UTF-16 order but after it in S3's UTF-8 byte order
+        User nine = user(9);
+        nine.setProfilePicUrl("profile-pictures/9/\uD83D\uDE00.png");
+        User ten = user(10);
+        ten.setProfilePicUrl("profile-pictures/10/\uFF21.png");
+        s3Server.putObject(BUCKET, nine.getProfilePicUrl(), new byte[]{1});
+        s3Server.putObject(BUCKET, ten.getProfilePicUrl(), new byte[]{1});
+        when(userRepository.findByProfilePicUrlIsNotNullAndIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(nine, ten));
+
+        ProfilePicReconciler.ReconcileResult result = reconciler.reconcileAll();
+
+        assertEquals(2, result.scanned());
+        assertEquals(0, result.drifted());
+        Mockito.verify(userRepository, never()).clearProfilePicUrl(anyLong(), any());
+    }
+
+    @Test
+    void testReconcileAll_uploadAfterListingIsNotDrift() {
+        User user = user(1);
+        when(userRepository.findByProfilePicUrlIsNotNullAndIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class)))
+                .thenAnswer(invocation -> {
+                    // The upload lands between the bucket listing and the page read
+                    s3Server.putObject(BUCKET, user.getProfilePicUrl(), new byte[]{1});
+                    return List.of(user);
+                });
+
+        ProfilePicReconciler.ReconcileResult result = reconciler.reconcileAll();
+
+        assertEquals(0, result.drifted());
+        Mockito.verify(userRepository, never()).clearProfilePicUrl(anyLong(), any());
+    }
+
+    @Test
+    void testReconcileAll_walksListingInPagesWithoutScanningTheBucket() {
+        List<User> users = new ArrayList<>();
+        for (long id = 1; id <= 6; id++) {
+            users.add(user(id));
+            s3Server.putObject(BUCKET, users.get(users.size() - 1).getProfilePicUrl(), new byte[]{1});
+        }
+        // Pictures of users the pages never reach sort between profile-pictures/1/ and profile-pictures/2/
+        for (long id = 100; id < 200; id++) {
+            s3Server.putObject(BUCKET, "profile-pictures/" + id + "/picture.png", new byte[]{1});
+        }
+        when(userRepository.findByProfilePicUrlIsNotNullAndIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class)))
+                .thenAnswer(invocation -> {
+                    long after = invocation.getArgument(0);
+                    return users.stream().filter(user -> user.getId() > after).limit(2).toList();
+                });
+
+        ProfilePicReconciler.ReconcileResult result = reconciler.reconcileAll();
+
+        assertEquals(6, result.scanned());
+        assertEquals(0, result.drifted());
+        assertEquals(0, s3Server.getHeadRequestCount());
+        // At most one listing per user, where walking the bucket would take 53 pages of two keys
+        assertTrue(s3Server.getListRequestCount() <= users.size());
+    }
+
+    @Test
+    void testReconcileAll_skipsCacheInvalidationWhenRowChangedConcurrently() {
+        User user = user(1);
+        when(userRepository.findByProfilePicUrlIsNotNullAndIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(user));
+        when(userRepository.clearProfilePicUrl(1L, user.getProfilePicUrl())).thenReturn(0);
+
+        ProfilePicReconciler.ReconcileResult result = reconciler.reconcileAll();
+
+        assertEquals(1, result.drifted());
+        assertEquals(0, result.fixed());
+        Mockito.verify(verifiedCredentialCache, never()).invalidate(any());
+    }
+
+    private static User user(long id) {
+        User user = new User();
+        ReflectionTestUtils.setField(user, "id", id);
+        user.setEmail("user" + id + "@example.com");
+        user.setProfilePicUrl("profile-pictures/" + id + "/picture.png");
+        return user;
+    }
+}
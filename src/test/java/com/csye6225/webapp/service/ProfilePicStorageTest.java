@@ -0,0 +1,172 @@
+package com.csye6225.webapp.service;
+
+import com.csye6225.webapp.exception.UploadCapacityException;
+import com.timgroup.statsd.StatsDClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.when;
+
+class ProfilePicStorageTest {
+
+    private static final int PART_SIZE = 16;
+
+    private S3AsyncClient s3AsyncClient;
+
+    private ProfilePicStorage profilePicStorage;
+
+    @BeforeEach
+    void setUp() {
+        s3AsyncClient = Mockito.mock(S3AsyncClient.class);
+        when(s3AsyncClient.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(CreateMultipartUploadResponse.builder().uploadId("upload-1").build()));
+        when(s3AsyncClient.completeMultipartUpload(any(CompleteMultipartUploadRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(CompleteMultipartUploadResponse.builder().build()));
+        when(s3AsyncClient.abortMultipartUpload(any(AbortMultipartUploadRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(AbortMultipartUploadResponse.builder().build()));
+        profilePicStorage = storage(2);
+    }
+
+    // Multipart from one part size up, two parts in flight per upload
+    private ProfilePicStorage storage(int maxBuffers) {
+        return new ProfilePicStorage(s3AsyncClient, Mockito.mock(StatsDClient.class), "test-bucket",
+                DataSize.ofBytes(PART_SIZE), DataSize.ofBytes(PART_SIZE), 2, maxBuffers, Duration.ofMillis(100), false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        profilePicStorage.shutdown();
+    }
+
+    @Test
+    void testUpload_exactMultipleOfPartSizeSendsNoEmptyPart() throws IOException {
+        when(s3AsyncClient.uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class)))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(UploadPartResponse.builder()
+                        .eTag("etag-" + invocation.getArgument(0, UploadPartRequest.class).partNumber()).build()));
+
+        profilePicStorage.upload("profile-pictures/1/picture.png", file(3 * PART_SIZE)).join();
+
+        ArgumentCaptor<UploadPartRequest> parts = ArgumentCaptor.forClass(UploadPartRequest.class);
+        Mockito.verify(s3AsyncClient, Mockito.times(3)).uploadPart(parts.capture(), any(AsyncRequestBody.class));
+        assertEquals(List.of(1, 2, 3), parts.getAllValues().stream().map(UploadPartRequest::partNumber).toList());
+        assertEquals(List.of(16L, 16L, 16L), parts.getAllValues().stream().map(UploadPartRequest::contentLength).toList());
+
+        ArgumentCaptor<CompleteMultipartUploadRequest> complete = ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        Mockito.verify(s3AsyncClient).completeMultipartUpload(complete.capture());
+        assertEquals(3, complete.getValue().multipartUpload().parts().size());
+        assertBuffersReturned();
+    }
+
+    @Test
+    void testUpload_failedPartAbortsAndReturnsBuffers() throws IOException {
+        when(s3AsyncClient.uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0, UploadPartRequest.class).partNumber() == 2
+                        ? CompletableFuture.failedFuture(S3Exception.builder().message("part failed").statusCode(500).build())
+                        : CompletableFuture.completedFuture(UploadPartResponse.builder().eTag("etag").build()));
+
+        CompletableFuture<Void> upload = profilePicStorage.upload("profile-pictures/1/picture.png", file(2 * PART_SIZE + 5));
+
+        assertThrows(CompletionException.class, upload::join);
+        Mockito.verify(s3AsyncClient).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+        Mockito.verify(s3AsyncClient, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+        assertBuffersReturned();
+    }
+
+    @Test
+    void testUpload_unreadableFileAbortsAndReturnsBuffers() throws IOException {
+        when(s3AsyncClient.uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class)))
+                .thenReturn(CompletableFuture.completedFuture(UploadPartResponse.builder().eTag("etag").build()));
+        // Reading fails after the first part has been sent
+        MockMultipartFile file = Mockito.spy(file(3 * PART_SIZE));
+        when(file.getInputStream()).thenReturn(new SequenceInputStream(
+                new ByteArrayInputStream(new byte[PART_SIZE]), new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("connection reset");
+                    }
+                }));
+
+        CompletableFuture<Void> upload = profilePicStorage.upload("profile-pictures/1/picture.png", file);
+
+        assertThrows(CompletionException.class, upload::join);
+        Mockito.verify(s3AsyncClient).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+        assertBuffersReturned();
+    }
+
+    @Test
+    void testUpload_largeUploadLeavesBuffersForOthers() throws IOException {
+        profilePicStorage.shutdown();
+        profilePicStorage = storage(3);
+        CompletableFuture<Void> s3Stalled = new CompletableFuture<>();
+        when(s3AsyncClient.uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class))).thenAnswer(invocation ->
+                invocation.getArgument(0, UploadPartRequest.class).key().endsWith("large.png")
+                        ? s3Stalled.thenApply(ignored -> UploadPartResponse.builder().eTag("etag").build())
+                        : CompletableFuture.completedFuture(UploadPartResponse.builder().eTag("etag").build()));
+
+        // The large upload's parts stall, yet it holds only its two in-flight buffers
+        CompletableFuture<Void> large = profilePicStorage.upload("profile-pictures/1/large.png", file(6 * PART_SIZE));
+        Mockito.verify(s3AsyncClient, Mockito.timeout(1000).times(2)).uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class));
+        profilePicStorage.upload("profile-pictures/2/small.png", file(3 * PART_SIZE)).join();
+
+        s3Stalled.complete(null);
+        large.join();
+        assertBuffersReturned();
+    }
+
+    @Test
+    void testUpload_failsFastWhenNoBufferFrees() throws IOException {
+        CompletableFuture<Void> s3Stalled = new CompletableFuture<>();
+        when(s3AsyncClient.uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class)))
+                .thenAnswer(invocation -> s3Stalled.thenApply(ignored -> UploadPartResponse.builder().eTag("etag").build()));
+        CompletableFuture<Void> first = profilePicStorage.upload("profile-pictures/1/picture.png", file(2 * PART_SIZE));
+        Mockito.verify(s3AsyncClient, Mockito.timeout(1000).times(2)).uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class));
+
+        // Both pooled buffers are held by the first upload's stalled parts
+        CompletableFuture<Void> second = profilePicStorage.upload("profile-pictures/2/picture.png", file(2 * PART_SIZE));
+
+        CompletionException e = assertThrows(CompletionException.class, second::join);
+        assertInstanceOf(UploadCapacityException.class, e.getCause());
+        s3Stalled.complete(null);
+        first.join();
+        assertBuffersReturned();
+    }
+
+    private void assertBuffersReturned() {
+        UploadBufferPool pool = profilePicStorage.getBufferPool();
+        assertEquals(pool.getAllocatedCount(), pool.getAvailableCount());
+    }
+
+    private static MockMultipartFile file(int size) {
+        return new MockMultipartFile("profilePic", "picture.png", "image/png", new byte[size]);
+    }
+}
@@ -0,0 +1,66 @@
+package com.csye6225.webapp.service;
+
+import com.timgroup.statsd.StatsDClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProfilePicUrlCacheTest {
+
+    private S3Presigner s3Presigner;
+
+    private ProfilePicUrlCache profilePicUrlCache;
+
+    @BeforeEach
+    void setUp() {
+        s3Presigner = S3Presigner.builder()
+                .region(Region.US_EAST_1)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test")))
+                .build();
+        profilePicUrlCache = new ProfilePicUrlCache(s3Presigner, Mockito.mock(StatsDClient.class), new SimpleMeterRegistry(), "test-bucket", 900, 60, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3Presigner.close();
+    }
+
+    @Test
+    void testGetUrl_signsOnceAndServesRepeatsFromCache() {
+        String url = profilePicUrlCache.getUrl(1L, "profile-pictures/1/picture.png");
+
+        assertTrue(url.contains("profile-pictures/1/picture.png"));
+        assertTrue(url.contains("X-Amz-Expires=900"));
+        assertSame(url, profilePicUrlCache.getUrl(1L, "profile-pictures/1/picture.png"));
+        assertEquals(50.0, profilePicUrlCache.hitRatio());
+    }
+
+    @Test
+    void testGetUrl_resignsAfterInvalidateOrKeyChange() {
+        profilePicUrlCache.getUrl(1L, "profile-pictures/1/picture.png");
+
+        String replaced = profilePicUrlCache.getUrl(1L, "profile-pictures/1/other.png");
+        assertTrue(replaced.contains("profile-pictures/1/other.png"));
+
+        profilePicUrlCache.invalidate(1L);
+        profilePicUrlCache.getUrl(1L, "profile-pictures/1/other.png");
+        assertEquals(0.0, profilePicUrlCache.hitRatio());
+    }
+
+    @Test
+    void testConstructor_rejectsMarginNotShorterThanExpiry() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ProfilePicUrlCache(s3Presigner, Mockito.mock(StatsDClient.class), new SimpleMeterRegistry(), "test-bucket", 60, 60, 100));
+    }
+}
@@ -0,0 +1,83 @@
+package com.csye6225.webapp.service;
+
+import com.csye6225.webapp.model.SentEmail;
+import com.csye6225.webapp.repository.SentEmailRepository;
+import com.timgroup.statsd.StatsDClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class SentEmailPurgerTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T12:00:00Z");
+
+    @Autowired
+    private SentEmailRepository sentEmailRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final StatsDClient statsDClient = Mockito.mock(StatsDClient.class);
+
+    @BeforeEach
+    void setUp() {
+        sentEmailRepository.deleteAll();
+    }
+
+    @Test
+    void testPurgeExpired_deletesUnverifiedRowsPastTheTokenTtlInBatches() {
+        for (int i = 0; i < 7; i++) {
+            save("expired-" + i, NOW.minusSeconds(3600 + i), i % 2 == 0 ? "VERIFIED" : null);
+        }
+        save("pending", NOW.minusSeconds(60), null);
+        save("verified-recently", NOW.minusSeconds(30), "VERIFIED");
+
+        SentEmailPurger purger = new SentEmailPurger(sentEmailRepository, statsDClient, transactionManager,
+                Clock.fixed(NOW, ZoneOffset.UTC), 120, 3, 10);
+
+        assertEquals(3, purger.purgeExpired());
+        assertEquals(6, sentEmailRepository.count());
+        assertTrue(sentEmailRepository.findByToken("pending").isPresent());
+        assertTrue(sentEmailRepository.findByToken("expired-1").isEmpty());
+        // Verified links stay answerable however old they are
+        assertTrue(sentEmailRepository.findByToken("expired-0").isPresent());
+        Mockito.verify(statsDClient).count("verification.purge.deleted_count", 3);
+    }
+
+    @Test
+    void testPurgeExpired_stopsAfterMaxBatches() {
+        for (int i = 0; i < 7; i++) {
+            save("expired-" + i, NOW.minusSeconds(3600 + i), null);
+        }
+
+        SentEmailPurger purger = new SentEmailPurger(sentEmailRepository, statsDClient, transactionManager,
+                Clock.fixed(NOW, ZoneOffset.UTC), 120, 3, 2);
+
+        assertEquals(6, purger.purgeExpired());
+        // The oldest go first, the rest wait for the next run
+        assertTrue(sentEmailRepository.findByToken("expired-0").isPresent());
+    }
+
+    private void save(String token, Instant sentAt, String status) {
+        SentEmail sentEmail = new SentEmail();
+        sentEmail.setEmail(token + "@example.com");
+        sentEmail.setToken(token);
+        sentEmail.setSentAt(Timestamp.from(sentAt));
+        sentEmail.setStatus(status);
+        sentEmailRepository.save(sentEmail);
+    }
+}
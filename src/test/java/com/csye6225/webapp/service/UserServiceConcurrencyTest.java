@@ -0,0 +1,97 @@
+package com.csye6225.webapp.service;
+
+import com.csye6225.webapp.dto.UserRequestDto;
+import com.csye6225.webapp.exception.UserAlreadyExistsException;
+import com.csye6225.webapp.repository.OutboxEventRepository;
+import com.csye6225.webapp.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class UserServiceConcurrencyTest {
+
+    private static final int SIGNUPS = 8;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+        outboxEventRepository.deleteAll();
+        // The JCache manager is shared by every test context and outlives their dropped schemas
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void testCreateUser_concurrentDuplicateSignupsCreateOneUser() throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(SIGNUPS);
+        List<Future<?>> signups = new ArrayList<>();
+        try {
+            for (int i = 0; i < SIGNUPS; i++) {
+                signups.add(executor.submit(() -> {
+                    start.await();
+                    return userService.createUser(request("race@example.com"));
+                }));
+            }
+            start.countDown();
+
+            int created = 0;
+            int rejected = 0;
+            for (Future<?> signup : signups) {
+                try {
+                    signup.get();
+                    created++;
+                } catch (ExecutionException e) {
+                    assertInstanceOf(UserAlreadyExistsException.class, e.getCause());
+                    rejected++;
+                }
+            }
+
+            assertEquals(1, created);
+            assertEquals(SIGNUPS - 1, rejected);
+            assertNotNull(userRepository.findByEmail("race@example.com"));
+            assertEquals(1, userRepository.count());
+            // The losing signups rolled back their outbox events along with the insert
+            assertEquals(1, outboxEventRepository.count());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private UserRequestDto request(String email) {
+        UserRequestDto userRequestDto = new UserRequestDto();
+        userRequestDto.setEmail(email);
+        userRequestDto.setFirstName("John");
+        userRequestDto.setLastName("Doe");
+        userRequestDto.setPassword("password");
+        return userRequestDto;
+    }
+}
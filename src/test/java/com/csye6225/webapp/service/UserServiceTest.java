@@ -3,8 +3,12 @@ package com.csye6225.webapp.service;
 import com.csye6225.webapp.dto.UserRequestDto;
 import com.csye6225.webapp.dto.UserResponseDto;
 import com.csye6225.webapp.dto.UserUpdateRequestDto;
+import com.csye6225.webapp.exception.UserAlreadyExistsException;
+import com.csye6225.webapp.model.OutboxEvent;
 import com.csye6225.webapp.model.User;
+import com.csye6225.webapp.repository.OutboxEventRepository;
 import com.csye6225.webapp.repository.UserRepository;
+import com.csye6225.webapp.security.VerifiedCredentialCache;
 import com.timgroup.statsd.StatsDClient;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,12 +16,16 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.stubbing.Answer;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.openMocks;
@@ -31,11 +39,20 @@ class UserServiceTest {
     private UserRepository userRepository;
 
     @Mock
-    private BCryptPasswordEncoder passwordEncoder;
+    private PasswordEncoder passwordEncoder;
 
     @Mock
     private StatsDClient statsDClient;
 
+    @Mock
+    private VerifiedCredentialCache verifiedCredentialCache;
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @BeforeEach
     void setUp() {
         openMocks(this);
@@ -53,7 +70,6 @@ class UserServiceTest {
         userRequestDto.setPassword("password");
 
 
-        when(userRepository.existsByEmail(userRequestDto.getEmail())).thenReturn(false);
         when(passwordEncoder.encode(userRequestDto.getPassword())).thenReturn("hashedPassword");
 
         // Use an Answer to simulate the user being saved and the accountCreated/accountUpdated timestamps being set
@@ -76,6 +92,24 @@ class UserServiceTest {
         assertNotNull(responseDto);
         assertEquals("test@example.com", responseDto.getEmail());
         assertEquals("John", responseDto.getFirstName());
+        Mockito.verify(outboxEventRepository).save(Mockito.any(OutboxEvent.class));
+    }
+
+    @Test
+    void testCreateUser_duplicateEmail() {
+        UserRequestDto userRequestDto = new UserRequestDto();
+        userRequestDto.setEmail("test@example.com");
+        userRequestDto.setFirstName("John");
+        userRequestDto.setLastName("Doe");
+        userRequestDto.setPassword("password");
+
+        when(passwordEncoder.encode(userRequestDto.getPassword())).thenReturn("hashedPassword");
+        when(userRepository.save(Mockito.any(User.class))).thenThrow(new DataIntegrityViolationException("duplicate key",
+                new SQLException("Unique index or primary key violation", "23505")));
+
+        assertThrows(UserAlreadyExistsException.class, () -> userService.createUser(userRequestDto));
+        Mockito.verify(transactionManager).rollback(Mockito.any());
+        Mockito.verify(outboxEventRepository, Mockito.never()).save(Mockito.any(OutboxEvent.class));
     }
 
     @Test
@@ -119,10 +153,60 @@ class UserServiceTest {
 
         userService.updateUser(email, userUpdateRequestDto);
 
-        assertEquals("John", user.getFirstName());
-        assertEquals("Doe", user.getLastName());
-        assertEquals("hashedNewPassword", user.getPassword());
-        assertNotNull(user.getAccountCreated());
-        assertNotNull(user.getAccountUpdated());
+        Mockito.verify(userRepository).updateProfile(user, "John", "Doe", "hashedNewPassword");
+        Mockito.verify(statsDClient).incrementCounter("db.user.update.password_count");
+        Mockito.verify(verifiedCredentialCache).invalidate(email);
+    }
+
+    @Test
+    void testUpdateUser_currentPasswordWithoutCachedCredentialIsNotRehashed() {
+        String email = "test@example.com";
+        UserUpdateRequestDto userUpdateRequestDto = new UserUpdateRequestDto();
+        userUpdateRequestDto.setFirstName("Jane");
+        userUpdateRequestDto.setLastName("Doe");
+        userUpdateRequestDto.setPassword("password");
+
+        User user = new User();
+        user.setEmail(email);
+        user.setFirstName("John");
+        user.setLastName("Doe");
+        user.setPassword("hashedPassword");
+
+        // The credential cache expired, or the request was authenticated on another instance
+        when(userRepository.findByEmail(email)).thenReturn(user);
+        when(passwordEncoder.matches("password", "hashedPassword")).thenReturn(true);
+
+        userService.updateUser(email, userUpdateRequestDto);
+
+        Mockito.verify(passwordEncoder, Mockito.never()).encode(Mockito.anyString());
+        Mockito.verify(userRepository).updateProfile(user, "Jane", null, null);
+        Mockito.verify(statsDClient).incrementCounter("db.user.update.firstName_count");
+        Mockito.verify(statsDClient, Mockito.never()).incrementCounter("db.user.update.password_count");
+    }
+
+    @Test
+    void testUpdateUser_unchangedSkipsHashAndInvalidation() {
+        String email = "test@example.com";
+        UserUpdateRequestDto userUpdateRequestDto = new UserUpdateRequestDto();
+        userUpdateRequestDto.setFirstName("John");
+        userUpdateRequestDto.setLastName("Doe");
+        userUpdateRequestDto.setPassword("password");
+
+        User user = new User();
+        user.setEmail(email);
+        user.setFirstName("John");
+        user.setLastName("Doe");
+        user.setPassword("hashedPassword");
+
+        when(verifiedCredentialCache.matches(email, "password")).thenReturn(true);
+        when(userRepository.findByEmail(email)).thenReturn(user);
+
+        userService.updateUser(email, userUpdateRequestDto);
+
+        assertEquals("hashedPassword", user.getPassword());
+        Mockito.verify(passwordEncoder, Mockito.never()).encode(Mockito.anyString());
+        Mockito.verify(userRepository, Mockito.never()).updateProfile(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any());
+        Mockito.verify(verifiedCredentialCache, Mockito.never()).invalidate(email);
+        Mockito.verify(statsDClient).incrementCounter("db.user.update.unchanged_count");
     }
 }
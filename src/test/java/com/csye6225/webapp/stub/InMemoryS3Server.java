@@ -0,0 +1,312 @@
+package com.csye6225.webapp.stub;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Minimal S3-compatible server backed by memory, for benchmarks and local runs. Supports
+// path-style PUT/GET/HEAD/DELETE object, multipart upload and ListObjectsV2. Requests are
+// not authenticated.
+public class InMemoryS3Server implements AutoCloseable {
+
+    private static final String XML_NAMESPACE = "http://s3.amazonaws.com/doc/2006-03-01/";
+
+    private final HttpServer server;
+
+    // Keyed by bucket/key in UTF-8 byte order, the order S3 lists keys in
+    private final NavigableMap<String, byte[]> objects = new ConcurrentSkipListMap<>(
+            (a, b) -> Arrays.compareUnsigned(a.getBytes(StandardCharsets.UTF_8), b.getBytes(StandardCharsets.UTF_8)));
+
+    private final Map<String, NavigableMap<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+
+    private final AtomicLong uploadIds = new AtomicLong();
+
+    private final AtomicInteger listRequests = new AtomicInteger();
+
+    private final AtomicInteger headRequests = new AtomicInteger();
+
+    private InMemoryS3Server(HttpServer server) {
+        this.server = server;
+    }
+
+    public static InMemoryS3Server start() throws IOException {
+        return start(0);
+    }
+
+    public static InMemoryS3Server start(int port) throws IOException {
+        HttpServer httpServer = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        InMemoryS3Server s3Server = new InMemoryS3Server(httpServer);
+        httpServer.createContext("/", exchange -> {
+            try (exchange) {
+                s3Server.handle(exchange);
+            } catch (RuntimeException e) {
+                exchange.sendResponseHeaders(500, -1);
+            }
+        });
+        httpServer.setExecutor(Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "in-memory-s3");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        httpServer.start();
+        return s3Server;
+    }
+
+    public URI getEndpoint() {
+        return URI.create("http://localhost:" + server.getAddress().getPort());
+    }
+
+    public void putObject(String bucket, String key, byte[] content) {
+        objects.put(bucket + "/" + key, content);
+    }
+
+    public byte[] getObject(String bucket, String key) {
+        return objects.get(bucket + "/" + key);
+    }
+
+    public boolean containsObject(String bucket, String key) {
+        return objects.containsKey(bucket + "/" + key);
+    }
+
+    public int getListRequestCount() {
+        return listRequests.get();
+    }
+
+    public int getHeadRequestCount() {
+        return headRequests.get();
+    }
+
+    public void clear() {
+        objects.clear();
+        uploads.clear();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = URLDecoder.decode(exchange.getRequestURI().getRawPath(), StandardCharsets.UTF_8).substring(1);
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        int slash = path.indexOf('/');
+        String bucket = slash < 0 ? path : path.substring(0, slash);
+        String key = slash < 0 ? "" : path.substring(slash + 1);
+        String objectPath = bucket + "/" + key;
+
+        switch (exchange.getRequestMethod()) {
+            case "PUT" -> {
+                byte[] body = readBody(exchange);
+                if (query.containsKey("uploadId")) {
+                    NavigableMap<Integer, byte[]> parts = uploads.get(query.get("uploadId"));
+                    if (parts == null) {
+                        sendError(exchange, 404, "NoSuchUpload");
+                        return;
+                    }
+                    parts.put(Integer.parseInt(query.get("partNumber")), body);
+                } else {
+                    objects.put(objectPath, body);
+                }
+                exchange.getResponseHeaders().set("ETag", etag(body));
+                exchange.sendResponseHeaders(200, -1);
+            }
+            case "POST" -> {
+                readBody(exchange);
+                if (query.containsKey("uploads")) {
+                    String uploadId = Long.toString(uploadIds.incrementAndGet());
+                    uploads.put(uploadId, new ConcurrentSkipListMap<>());
+                    sendXml(exchange, 200, "<InitiateMultipartUploadResult xmlns=\"" + XML_NAMESPACE + "\"><Bucket>" + bucket
+                            + "</Bucket><Key>" + escape(key) + "</Key><UploadId>" + uploadId + "</UploadId></InitiateMultipartUploadResult>");
+                } else if (query.containsKey("uploadId")) {
+                    NavigableMap<Integer, byte[]> parts = uploads.remove(query.get("uploadId"));
+                    if (parts == null) {
+                        sendError(exchange, 404, "NoSuchUpload");
+                        return;
+                    }
+                    ByteArrayOutputStream content = new ByteArrayOutputStream();
+                    parts.values().forEach(content::writeBytes);
+                    objects.put(objectPath, content.toByteArray());
+                    sendXml(exchange, 200, "<CompleteMultipartUploadResult xmlns=\"" + XML_NAMESPACE + "\"><Location>" + getEndpoint() + "/"
+                            + escape(objectPath) + "</Location><Bucket>" + bucket + "</Bucket><Key>" + escape(key) + "</Key><ETag>"
+                            + escape(etag(content.toByteArray())) + "</ETag></CompleteMultipartUploadResult>");
+                } else {
+                    sendError(exchange, 400, "InvalidRequest");
+                }
+            }
+            case "GET" -> {
+                if (key.isEmpty()) {
+                    listRequests.incrementAndGet();
+                    listObjects(exchange, bucket, query);
+                    return;
+                }
+                byte[] content = objects.get(objectPath);
+                if (content == null) {
+                    sendError(exchange, 404, "NoSuchKey");
+                    return;
+                }
+                exchange.getResponseHeaders().set("ETag", etag(content));
+                exchange.sendResponseHeaders(200, content.length);
+                exchange.getResponseBody().write(content);
+            }
+            case "HEAD" -> {
+                headRequests.incrementAndGet();
+                byte[] content = objects.get(objectPath);
+                if (content == null) {
+                    exchange.sendResponseHeaders(404, -1);
+                    return;
+                }
+                exchange.getResponseHeaders().set("ETag", etag(content));
+                exchange.getResponseHeaders().set("Content-Length", Integer.toString(content.length));
+                exchange.sendResponseHeaders(200, -1);
+            }
+            case "DELETE" -> {
+                if (query.containsKey("uploadId")) {
+                    uploads.remove(query.get("uploadId"));
+                } else {
+                    objects.remove(objectPath);
+                }
+                exchange.sendResponseHeaders(204, -1);
+            }
+            default -> exchange.sendResponseHeaders(405, -1);
+        }
+    }
+
+    private void listObjects(HttpExchange exchange, String bucket, Map<String, String> query) throws IOException {
+        String prefix = query.getOrDefault("prefix", "");
+        int maxKeys = Integer.parseInt(query.getOrDefault("max-keys", "1000"));
+        String after = query.getOrDefault("continuation-token", query.getOrDefault("start-after", ""));
+
+        StringBuilder contents = new StringBuilder();
+        int count = 0;
+        String lastKey = null;
+        boolean truncated = false;
+        NavigableMap<String, byte[]> candidates = after.isEmpty()
+                ? objects.tailMap(bucket + "/" + prefix, true)
+                : objects.tailMap(bucket + "/" + after, false);
+        for (Map.Entry<String, byte[]> entry : candidates.entrySet()) {
+            if (!entry.getKey().startsWith(bucket + "/" + prefix)) {
+                break;
+            }
+            String key = entry.getKey().substring(bucket.length() + 1);
+            if (count == maxKeys) {
+                truncated = true;
+                break;
+            }
+            contents.append("<Contents><Key>").append(escape(key)).append("</Key><LastModified>2024-01-01T00:00:00.000Z</LastModified><ETag>")
+                    .append(escape(etag(entry.getValue()))).append("</ETag><Size>").append(entry.getValue().length)
+                    .append("</Size><StorageClass>STANDARD</StorageClass></Contents>");
+            lastKey = key;
+            count++;
+        }
+
+        sendXml(exchange, 200, "<ListBucketResult xmlns=\"" + XML_NAMESPACE + "\"><Name>" + bucket + "</Name><Prefix>" + escape(prefix)
+                + "</Prefix><KeyCount>" + count + "</KeyCount><MaxKeys>" + maxKeys + "</MaxKeys><IsTruncated>" + truncated + "</IsTruncated>"
+                + (truncated ? "<NextContinuationToken>" + escape(lastKey) + "</NextContinuationToken>" : "")
+                + contents + "</ListBucketResult>");
+    }
+
+    private static byte[] readBody(HttpExchange exchange) throws IOException {
+        byte[] body = exchange.getRequestBody().readAllBytes();
+        Headers headers = exchange.getRequestHeaders();
+        String contentSha256 = headers.getFirst("x-amz-content-sha256");
+        String contentEncoding = headers.getFirst("Content-Encoding");
+        if ((contentSha256 != null && contentSha256.startsWith("STREAMING-"))
+                || (contentEncoding != null && contentEncoding.contains("aws-chunked"))) {
+            return decodeAwsChunked(body);
+        }
+        return body;
+    }
+
+    // Strips the aws-chunked framing: "<hex size>[;chunk-signature=...]\r\n<data>\r\n" repeated, ending with a zero-size chunk
+    private static byte[] decodeAwsChunked(byte[] body) throws IOException {
+        InputStream in = new ByteArrayInputStream(body);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length);
+        while (true) {
+            String header = readLine(in);
+            if (header == null) {
+                break;
+            }
+            int semicolon = header.indexOf(';');
+            int size = Integer.parseInt((semicolon < 0 ? header : header.substring(0, semicolon)).trim(), 16);
+            if (size == 0) {
+                break;
+            }
+            out.write(in.readNBytes(size));
+            readLine(in);
+        }
+        return out.toByteArray();
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != -1) {
+            if (c == '\n') {
+                return line.toString().trim();
+            }
+            line.append((char) c);
+        }
+        return line.length() == 0 ? null : line.toString().trim();
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = URLDecoder.decode(equals < 0 ? pair : pair.substring(0, equals), StandardCharsets.UTF_8);
+            String value = equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+            query.put(name, value);
+        }
+        return query;
+    }
+
+    private static void sendXml(HttpExchange exchange, int status, String xml) throws IOException {
+        byte[] body = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>" + xml).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/xml");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String code) throws IOException {
+        sendXml(exchange, status, "<Error><Code>" + code + "</Code><Message>" + code + "</Message></Error>");
+    }
+
+    private static String etag(byte[] content) {
+        try {
+            return "\"" + HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(content)) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String escape(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
@@ -0,0 +1,132 @@
+package com.csye6225.webapp.stub;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+
+// Minimal SNS-compatible sink for benchmarks and local runs. Accepts Publish and PublishBatch
+// (query protocol) for any topic and keeps the published messages in memory. Requests are not
+// authenticated.
+public class InMemorySnsServer implements AutoCloseable {
+
+    private static final String XML_NAMESPACE = "http://sns.amazonaws.com/doc/2010-03-31/";
+
+    private final HttpServer server;
+
+    private final Queue<String> messages = new ConcurrentLinkedQueue<>();
+
+    private InMemorySnsServer(HttpServer server) {
+        this.server = server;
+    }
+
+    public static InMemorySnsServer start() throws IOException {
+        HttpServer httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        InMemorySnsServer snsServer = new InMemorySnsServer(httpServer);
+        httpServer.createContext("/", exchange -> {
+            try (exchange) {
+                snsServer.handle(exchange);
+            } catch (RuntimeException e) {
+                exchange.sendResponseHeaders(500, -1);
+            }
+        });
+        httpServer.setExecutor(Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "in-memory-sns");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        httpServer.start();
+        return snsServer;
+    }
+
+    public URI getEndpoint() {
+        return URI.create("http://localhost:" + server.getAddress().getPort());
+    }
+
+    public List<String> getMessages() {
+        return new ArrayList<>(messages);
+    }
+
+    public int getMessageCount() {
+        return messages.size();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        Map<String, String> form = parseForm(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+        String action = form.getOrDefault("Action", "");
+        switch (action) {
+            case "Publish" -> {
+                messages.add(form.get("Message"));
+                sendXml(exchange, "<PublishResponse xmlns=\"" + XML_NAMESPACE + "\"><PublishResult><MessageId>" + UUID.randomUUID()
+                        + "</MessageId></PublishResult>" + responseMetadata() + "</PublishResponse>");
+            }
+            case "PublishBatch" -> {
+                StringBuilder successful = new StringBuilder();
+                for (int i = 1; form.containsKey("PublishBatchRequestEntries.member." + i + ".Id"); i++) {
+                    String prefix = "PublishBatchRequestEntries.member." + i + ".";
+                    messages.add(form.get(prefix + "Message"));
+                    successful.append("<member><Id>").append(escape(form.get(prefix + "Id"))).append("</Id><MessageId>")
+                            .append(UUID.randomUUID()).append("</MessageId></member>");
+                }
+                sendXml(exchange, "<PublishBatchResponse xmlns=\"" + XML_NAMESPACE + "\"><PublishBatchResult><Successful>" + successful
+                        + "</Successful><Failed/></PublishBatchResult>" + responseMetadata() + "</PublishBatchResponse>");
+            }
+            default -> {
+                byte[] body = ("<ErrorResponse xmlns=\"" + XML_NAMESPACE + "\"><Error><Type>Sender</Type><Code>InvalidAction</Code>"
+                        + "<Message>" + escape(action) + "</Message></Error></ErrorResponse>").getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/xml");
+                exchange.sendResponseHeaders(400, body.length);
+                exchange.getResponseBody().write(body);
+            }
+        }
+    }
+
+    private static String responseMetadata() {
+        return "<ResponseMetadata><RequestId>" + UUID.randomUUID() + "</RequestId></ResponseMetadata>";
+    }
+
+    private static Map<String, String> parseForm(String body) {
+        Map<String, String> form = new HashMap<>();
+        if (body.isEmpty()) {
+            return form;
+        }
+        for (String pair : body.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = URLDecoder.decode(equals < 0 ? pair : pair.substring(0, equals), StandardCharsets.UTF_8);
+            String value = equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+            form.put(name, value);
+        }
+        return form;
+    }
+
+    private static void sendXml(HttpExchange exchange, String xml) throws IOException {
+        byte[] body = xml.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/xml");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static String escape(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}